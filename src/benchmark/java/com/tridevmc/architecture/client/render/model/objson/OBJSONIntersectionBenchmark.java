@@ -0,0 +1,148 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.utils.LatticePredicates;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the exact triangle/box test of {@link LatticePredicates#intersects} against the stream based separating axis
+ * test it replaced, on every triangle of the shipped meshes against every voxel that overlaps its bounds. Run with
+ * <code>-prof gc</code> to also compare what each allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OBJSONIntersectionBenchmark {
+
+    private static final int RESOLUTION = 16;
+    // Cells are inset by a 32nd of their size, the same as the voxelizer does.
+    private static final long INSET = LatticePredicates.LATTICE / (RESOLUTION * 32);
+
+    private static final Vec3 xNormal = new Vec3(1, 0, 0);
+    private static final Vec3 yNormal = new Vec3(0, 1, 0);
+    private static final Vec3 zNormal = new Vec3(0, 0, 1);
+
+    private double[][][] triangles;
+    private long[][] latticeTriangles;
+    private AABB[] boxes;
+    private long[][] latticeBoxes;
+    private int[] boxTriangles;
+
+    @Setup
+    public void setup() {
+        List<double[][]> triangles = new ArrayList<>();
+        List<AABB> boxes = new ArrayList<>();
+        List<Integer> boxTriangles = new ArrayList<>();
+        double s = 1D / RESOLUTION;
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            for (OBJSON.Face face : model.faces) {
+                for (int triangle = 0; triangle < face.getTriangleCount(); triangle++) {
+                    double[][] tri = new double[3][];
+                    for (int i = 0; i < 3; i++) {
+                        tri[i] = face.getPos(face.getVertexIndex(triangle, i)).toArray();
+                    }
+                    int x0 = (int) Math.floor(Math.min(tri[0][0], Math.min(tri[1][0], tri[2][0])) * RESOLUTION);
+                    int y0 = (int) Math.floor(Math.min(tri[0][1], Math.min(tri[1][1], tri[2][1])) * RESOLUTION);
+                    int z0 = (int) Math.floor(Math.min(tri[0][2], Math.min(tri[1][2], tri[2][2])) * RESOLUTION);
+                    int x1 = (int) Math.ceil(Math.max(tri[0][0], Math.max(tri[1][0], tri[2][0])) * RESOLUTION);
+                    int y1 = (int) Math.ceil(Math.max(tri[0][1], Math.max(tri[1][1], tri[2][1])) * RESOLUTION);
+                    int z1 = (int) Math.ceil(Math.max(tri[0][2], Math.max(tri[1][2], tri[2][2])) * RESOLUTION);
+                    for (int x = x0; x <= x1; x++) {
+                        for (int y = y0; y <= y1; y++) {
+                            for (int z = z0; z <= z1; z++) {
+                                boxes.add(new AABB(x * s, y * s, z * s, (x + 1) * s, (y + 1) * s, (z + 1) * s));
+                                boxTriangles.add(triangles.size());
+                            }
+                        }
+                    }
+                    triangles.add(tri);
+                }
+            }
+        }
+        this.triangles = triangles.toArray(double[][][]::new);
+        this.latticeTriangles = new long[this.triangles.length][9];
+        for (int t = 0; t < this.triangles.length; t++) {
+            for (int i = 0; i < 9; i++) {
+                this.latticeTriangles[t][i] = LatticePredicates.snap(this.triangles[t][i / 3][i % 3]);
+            }
+        }
+        double deflation = 1D / (RESOLUTION * 32);
+        this.boxes = boxes.stream().map(box -> box.deflate(deflation)).toArray(AABB[]::new);
+        this.latticeBoxes = boxes.stream().map(box -> new long[]{
+                LatticePredicates.snap(box.minX) + INSET, LatticePredicates.snap(box.minY) + INSET, LatticePredicates.snap(box.minZ) + INSET,
+                LatticePredicates.snap(box.maxX) - INSET, LatticePredicates.snap(box.maxY) - INSET, LatticePredicates.snap(box.maxZ) - INSET
+        }).toArray(long[][]::new);
+        this.boxTriangles = boxTriangles.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Benchmark
+    public int lattice() {
+        int hits = 0;
+        for (int i = 0; i < this.latticeBoxes.length; i++) {
+            long[] box = this.latticeBoxes[i];
+            if (LatticePredicates.intersects(this.latticeTriangles[this.boxTriangles[i]], box[0], box[1], box[2], box[3], box[4], box[5]))
+                hits++;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int legacy() {
+        int hits = 0;
+        for (int i = 0; i < this.boxes.length; i++) {
+            if (intersectsLegacy(this.triangles[this.boxTriangles[i]], this.boxes[i]))
+                hits++;
+        }
+        return hits;
+    }
+
+    /**
+     * The triangle/box test as originally implemented in {@link OBJSONVoxelizer}, kept as the baseline.
+     */
+    private static boolean intersectsLegacy(double[][] tri, AABB box) {
+        var aabbCenter = box.getCenter();
+        var aabbSize = new Vec3(box.getXsize(), box.getYsize(), box.getZsize()).scale(0.5D);
+
+        var v0 = new Vec3(tri[0][0], tri[0][1], tri[0][2]).subtract(aabbCenter);
+        var v1 = new Vec3(tri[1][0], tri[1][1], tri[1][2]).subtract(aabbCenter);
+        var v2 = new Vec3(tri[2][0], tri[2][1], tri[2][2]).subtract(aabbCenter);
+
+        var l0 = v1.subtract(v0);
+        var l1 = v2.subtract(v1);
+        var l2 = v0.subtract(v2);
+
+        var axes = new Vec3[]{
+                xNormal.cross(l0), xNormal.cross(l1), xNormal.cross(l2),
+                yNormal.cross(l0), yNormal.cross(l1), yNormal.cross(l2),
+                zNormal.cross(l0), zNormal.cross(l1), zNormal.cross(l2),
+                xNormal, yNormal, zNormal, l0.cross(l1)
+        };
+        return Arrays.stream(axes).noneMatch(a -> testSeparatingAxisLegacy(v0, v1, v2, a, aabbSize));
+    }
+
+    private static boolean testSeparatingAxisLegacy(Vec3 v0, Vec3 v1, Vec3 v2, Vec3 axis, Vec3 aabbSize) {
+        double r = aabbSize.x * Math.abs(xNormal.dot(axis)) +
+                aabbSize.y * Math.abs(yNormal.dot(axis)) +
+                aabbSize.z * Math.abs(zNormal.dot(axis));
+        double[] projections = new double[]{v0.dot(axis), v1.dot(axis), v2.dot(axis)};
+        return Math.max(-Arrays.stream(projections).max().getAsDouble(), Arrays.stream(projections).min().getAsDouble()) > r;
+    }
+}
@@ -0,0 +1,85 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.helpers.Trans3;
+import com.tridevmc.architecture.common.helpers.Vector3;
+import com.tridevmc.architecture.common.utils.CubeRotation;
+import com.tridevmc.architecture.common.utils.VoxelOccupancy;
+import com.tridevmc.architecture.common.utils.VoxelShapeUtils;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times rotating the voxelized shape of every shipped model into each of the 24 side and turn orientations with
+ * {@link CubeRotation}, on shapes and on grids, against sending every box through the matrix of the {@link Trans3}.
+ * That they agree is checked by <code>CubeRotationTest</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OBJSONRotationBenchmark {
+
+    private final List<VoxelOccupancy> occupancies = new ArrayList<>();
+    private final List<VoxelShape> shapes = new ArrayList<>();
+    private final Trans3[] transforms = new Trans3[24];
+
+    @Setup
+    public void setup() {
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            var occupancy = model.getVoxelizer().voxelizeOccupancy();
+            this.occupancies.add(occupancy);
+            this.shapes.add(occupancy.toVoxelShape());
+        }
+        for (int side = 0; side < 6; side++) {
+            for (int turn = 0; turn < 4; turn++) {
+                this.transforms[side * 4 + turn] = Trans3.sideTurn(Vector3.zero, side, turn);
+            }
+        }
+    }
+
+    /**
+     * Rotates every shape the way {@link Trans3#t(VoxelShape)} does for rotations that are not a {@link CubeRotation}.
+     */
+    @Benchmark
+    public void rotateBoxes(Blackhole blackhole) {
+        for (VoxelShape shape : this.shapes) {
+            for (Trans3 t : this.transforms) {
+                blackhole.consume(VoxelShapeUtils.fromBoxes(t.t(shape.toAabbs())));
+            }
+        }
+    }
+
+    @Benchmark
+    public void rotateShapes(Blackhole blackhole) {
+        for (VoxelShape shape : this.shapes) {
+            for (Trans3 t : this.transforms) {
+                blackhole.consume(t.t(shape));
+            }
+        }
+    }
+
+    @Benchmark
+    public void rotateGrids(Blackhole blackhole) {
+        for (VoxelOccupancy occupancy : this.occupancies) {
+            for (Trans3 t : this.transforms) {
+                blackhole.consume(t.getCubeRotation().rotate(occupancy));
+            }
+        }
+    }
+}
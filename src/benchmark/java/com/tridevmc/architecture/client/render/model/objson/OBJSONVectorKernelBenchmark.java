@@ -0,0 +1,70 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.utils.LatticeBatchKernel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times voxelizing the largest shipped models with the {@link LatticeBatchKernel} against testing one triangle at a
+ * time, at the resolution each model is picked at. Gradle must be run with <code>-PvectorKernel</code>, that the two
+ * agree is checked by <code>OBJSONVoxelizerRegressionTest</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OBJSONVectorKernelBenchmark {
+
+    private static final int MODELS = 8;
+
+    @Param({"false", "true"})
+    public boolean vectorKernel;
+
+    private final List<OBJSONVoxelizer> voxelizers = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        System.setProperty(LatticeBatchKernel.PROPERTY, "true");
+        if (LatticeBatchKernel.get() == null)
+            throw new IllegalStateException("The vector kernel is unavailable, run with -PvectorKernel");
+        System.setProperty(LatticeBatchKernel.PROPERTY, Boolean.toString(this.vectorKernel));
+        List<OBJSON> models = new ArrayList<>(OBJSONTestModels.getAll());
+        models.sort(Comparator.comparingInt(OBJSONVectorKernelBenchmark::getTriangleCount).reversed());
+        for (OBJSON model : models.subList(0, Math.min(MODELS, models.size()))) {
+            int resolution = OBJSONVoxelResolution.getAutomatic(model, OBJSONVoxelResolution.Use.PICKING);
+            this.voxelizers.add(new OBJSONVoxelizer(model, resolution));
+        }
+    }
+
+    @Benchmark
+    public void voxelizeLargest(Blackhole blackhole) {
+        for (OBJSONVoxelizer voxelizer : this.voxelizers) {
+            blackhole.consume(voxelizer.voxelizeOccupancy(OBJSONVoxelizer.Strategy.SCANLINE));
+        }
+    }
+
+    private static int getTriangleCount(OBJSON model) {
+        int triangles = 0;
+        for (OBJSON.Face face : model.faces) {
+            triangles += face.getTriangleCount();
+        }
+        return triangles;
+    }
+}
@@ -0,0 +1,60 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.utils.LatticeBatchKernel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times voxelizing every shipped model at each resolution it is used at with each {@link OBJSONVoxelizer.Strategy}.
+ * Pass <code>-p vectorKernel=false,true</code> with <code>-PvectorKernel</code> to also time them with the vector kernel.
+ * That every strategy gives the same shapes is checked by <code>OBJSONVoxelizerRegressionTest</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OBJSONVoxelizerBenchmark {
+
+    @Param
+    public OBJSONVoxelizer.Strategy strategy;
+
+    @Param("false")
+    public boolean vectorKernel;
+
+    private final List<OBJSONVoxelizer> voxelizers = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        System.setProperty(LatticeBatchKernel.PROPERTY, Boolean.toString(this.vectorKernel));
+        if (this.vectorKernel && LatticeBatchKernel.get() == null)
+            throw new IllegalStateException("The vector kernel is unavailable, run with -PvectorKernel");
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            for (int resolution : OBJSONTestModels.getResolutions(model)) {
+                this.voxelizers.add(new OBJSONVoxelizer(model, resolution));
+            }
+        }
+    }
+
+    @Benchmark
+    public void voxelizeAll(Blackhole blackhole) {
+        for (OBJSONVoxelizer voxelizer : this.voxelizers) {
+            blackhole.consume(voxelizer.voxelizeOccupancy(this.strategy));
+        }
+    }
+}
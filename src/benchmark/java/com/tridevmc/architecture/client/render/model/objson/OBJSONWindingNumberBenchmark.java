@@ -0,0 +1,77 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import net.minecraft.world.phys.Vec3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the {@link FastWindingNumber} inside test against the ray cast inside test, querying the center of every voxel
+ * of every shipped model. Open meshes make the two disagree on some points, how many is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OBJSONWindingNumberBenchmark {
+
+    private static final int RESOLUTION = 16;
+
+    @Param
+    public OBJSONVoxelizer.InsideTest insideTest;
+
+    private final List<OBJSONVoxelizer> voxelizers = new ArrayList<>();
+    private final List<Vec3[]> points = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        int pointCount = 0, disagreements = 0;
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            var voxelizer = new OBJSONVoxelizer(model, RESOLUTION, this.insideTest);
+            var other = new OBJSONVoxelizer(model, RESOLUTION, this.insideTest == OBJSONVoxelizer.InsideTest.RAYCAST
+                    ? OBJSONVoxelizer.InsideTest.WINDING_NUMBER : OBJSONVoxelizer.InsideTest.RAYCAST);
+            var modelPoints = new ArrayList<Vec3>();
+            for (int x = voxelizer.getMin().getX(); x < voxelizer.getMax().getX(); x++) {
+                for (int y = voxelizer.getMin().getY(); y < voxelizer.getMax().getY(); y++) {
+                    for (int z = voxelizer.getMin().getZ(); z < voxelizer.getMax().getZ(); z++) {
+                        Vec3 point = voxelizer.getBoxForOffset(x, y, z).getCenter();
+                        if (voxelizer.isPointInside(point) != other.isPointInside(point))
+                            disagreements++;
+                        modelPoints.add(point);
+                    }
+                }
+            }
+            this.voxelizers.add(voxelizer);
+            this.points.add(modelPoints.toArray(Vec3[]::new));
+            pointCount += modelPoints.size();
+        }
+        System.out.printf("%d of %d points disagree across %d models%n", disagreements, pointCount, this.voxelizers.size());
+    }
+
+    @Benchmark
+    public int queryAll() {
+        int inside = 0;
+        for (int i = 0; i < this.voxelizers.size(); i++) {
+            var voxelizer = this.voxelizers.get(i);
+            for (Vec3 point : this.points.get(i)) {
+                if (voxelizer.isPointInside(point))
+                    inside++;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,90 @@
+package com.tridevmc.architecture.common.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookups per second of a {@link ConcurrentLongKeyedCache} against a synchronized least recently used map
+ * of the same size shared by many threads, the way the server thread and the chunk builders share the block shape caches. Keys are drawn
+ * from a skewed distribution over more keys than fit, a miss caches the key. Pass <code>-t</code> to change the number of
+ * threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ConcurrentLongKeyedCacheBenchmark {
+
+    private static final int CAPACITY = 4096;
+
+    @Param({"concurrent", "synchronized"})
+    public String cache;
+
+    private final long[] keys = ConcurrentLongKeyedCacheTest.getKeys(CAPACITY * 4);
+    private Getter get;
+    private Putter put;
+
+    @Setup
+    public void setup() {
+        if (this.cache.equals("concurrent")) {
+            var concurrent = new ConcurrentLongKeyedCache<Long>("Concurrent cache", CAPACITY);
+            this.get = concurrent::get;
+            this.put = concurrent::put;
+        } else {
+            var synchronised = new Long2ObjectLinkedOpenHashMap<Long>();
+            this.get = key -> {
+                synchronized (synchronised) {
+                    return synchronised.getAndMoveToLast(key);
+                }
+            };
+            this.put = (key, value) -> {
+                synchronized (synchronised) {
+                    synchronised.putAndMoveToLast(key, value);
+                    if (synchronised.size() > CAPACITY)
+                        synchronised.removeFirst();
+                }
+            };
+        }
+    }
+
+    @Benchmark
+    public Long lookup(ThreadState thread) {
+        // Squaring favours low indices, so some keys are hot and the rest keep evicting each other.
+        double r = thread.random.nextDouble();
+        long key = this.keys[(int) (r * r * this.keys.length)];
+        Long value = this.get.get(key);
+        if (value == null)
+            this.put.put(key, key);
+        return value;
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    private interface Getter {
+        Long get(long key);
+    }
+
+    private interface Putter {
+        void put(long key, Long value);
+    }
+}
@@ -8,6 +8,7 @@ import com.tridevmc.architecture.common.ArchitectureMod;
 import com.tridevmc.architecture.common.render.ModelSpec;
 import com.tridevmc.architecture.common.shape.EnumShape;
 import com.tridevmc.architecture.common.shape.behaviour.ShapeBehaviourModel;
+import com.tridevmc.architecture.common.utils.BVH;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.LevelRenderer;
 import net.minecraft.core.BlockPos;
@@ -34,6 +35,8 @@ public class ArchitectureDebugEventListeners {
     public static BlockPos targetPos;
     public static OBJSONVoxelizer targetVoxelizer;
     public static Vec3i currentVoxelizationOffset;
+    // Only touched on the render thread.
+    private static final BVH.RayHits RAY_HITS = new BVH.RayHits();
 
     @SubscribeEvent
     public static void onRenderLevelStage(RenderLevelStageEvent event) {
@@ -56,17 +59,14 @@ public class ArchitectureDebugEventListeners {
         var toPoint = new Vec3(meshBounds.maxX + 1, point.y, point.z);
         var rayDirection = toPoint.subtract(fromPoint);
         var ray = new OBJSONVoxelizer.Ray(fromPoint, rayDirection);
-        var hits = ray.intersectUnfiltered(targetVoxelizer.getMesh())
-                .toList();
+        int hitCount = targetVoxelizer.getMesh().raycastAll(ray, RAY_HITS);
         var lineBuffer = bufferSource.getBuffer(ARCHITECTURE_DEBUG_LINE);
 
         RenderSystem.disableDepthTest();
         matrix.pushPose();
         matrix.translate(-cameraPos.x + targetPos.getX(), -cameraPos.y + targetPos.getY(), -cameraPos.z + targetPos.getZ());
         renderBox(matrix, lineBuffer, box);
-        hits.forEach(hit -> {
-            renderRayHit(matrix, lineBuffer, point, hit);
-        });
+        renderRayHits(matrix, lineBuffer, point, ray, RAY_HITS, hitCount);
         if (targetVoxelizer.isBoxValidVoxel(box)) {
             LevelRenderer.renderLineBox(matrix, lineBuffer, box, 0, 0, 1F, 1);
         } else {
@@ -85,16 +85,23 @@ public class ArchitectureDebugEventListeners {
         }
     }
 
-    private static void renderRayHit(PoseStack matrix, VertexConsumer lineBuffer, Vec3 point, OBJSONVoxelizer.Ray.Hit hit) {
-        if (hit.isValidHit()) {
-            renderLine(matrix, lineBuffer, hit.ray().origin(), hit.point(), 0, 1F, 0, .8F);
-            LevelRenderer.renderLineBox(matrix, lineBuffer, new AABB(hit.point().x, hit.point().y, hit.point().z, hit.point().x, hit.point().y, hit.point().z).inflate(1D / 256D),
-                    hit.point().x < point.x ? 1F : 0F,
+    /**
+     * Draws the ray up to its furthest hit, or in red if it hit nothing, and marks each hit in order along the ray.
+     */
+    private static void renderRayHits(PoseStack matrix, VertexConsumer lineBuffer, Vec3 point, OBJSONVoxelizer.Ray ray,
+                                      BVH.RayHits hits, int hitCount) {
+        if (hitCount == 0) {
+            renderLine(matrix, lineBuffer, ray.origin(), ray.pointAt(1), 1F, 0, 0, .8F);
+            return;
+        }
+        renderLine(matrix, lineBuffer, ray.origin(), ray.pointAt(hits.getDistance(hitCount - 1)), 0, 1F, 0, .8F);
+        for (int i = 0; i < hitCount; i++) {
+            Vec3 hit = ray.pointAt(hits.getDistance(i));
+            LevelRenderer.renderLineBox(matrix, lineBuffer, new AABB(hit, hit).inflate(1D / 256D),
+                    hit.x < point.x ? 1F : 0F,
                     1F,
                     0F,
                     .8F);
-        } else {
-            renderLine(matrix, lineBuffer, hit.ray().origin(), hit.ray().origin().add(hit.ray().direction()), 1F, 0, 0, .8F);
         }
     }
 
@@ -1,28 +1,48 @@
 package com.tridevmc.architecture.client.render.model.objson;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution.Use;
 import com.tridevmc.architecture.common.ArchitectureLog;
 import com.tridevmc.architecture.common.helpers.Trans3;
 import com.tridevmc.architecture.common.helpers.Vector3;
+import com.tridevmc.architecture.common.utils.VoxelOccupancy;
+import com.tridevmc.architecture.common.utils.VoxelShapeUtils;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 import net.minecraftforge.fml.loading.progress.StartupMessageManager;
 
-import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class OBJSON {
 
     private static final Gson GSON = new Gson();
+    private static final Object PENDING_LOCK = new Object();
     private String name;
-    private double[] bounds;
-    private double[][] boxes;
-    private Face[] faces;
-    private OBJSONVoxelizer voxelizer;
-    private VoxelShape voxelized;
+    double[] bounds;
+    double[][] boxes;
+    boolean authoritativeBoxes;
+    Face[] faces;
+    private transient boolean compiled;
+    private transient String path;
+    private transient long meshHash;
+    private transient OBJSONVoxelCache voxelCache;
+    private final transient Map<Integer, OBJSONVoxelizer> voxelizers = new ConcurrentHashMap<>();
+    private final transient AtomicReferenceArray<VoxelShape> voxelized = new AtomicReferenceArray<>(Use.values().length);
+    private final transient Future<?>[] pendingVoxelizations = new Future<?>[Use.values().length];
+    private final transient AtomicReferenceArray<CompletableFuture<VoxelShape>> inFlightVoxelizations = new AtomicReferenceArray<>(Use.values().length);
 
     public static OBJSON fromResource(ResourceLocation location) {
         return fromResource(location, Trans3.blockCenter);
@@ -31,17 +51,21 @@ public class OBJSON {
     public static OBJSON fromResource(ResourceLocation location, Trans3 trans) {
         // Can't use resource manager because this needs to work on the server
         String path = String.format("/data/%s/objson/%s", location.getNamespace(), location.getPath());
-        InputStream in = OBJSON.class.getResourceAsStream(path);
-        OBJSON model = GSON.fromJson(new InputStreamReader(in), OBJSON.class);
+        OBJSON model = OBJSONBinary.read(path + OBJSONBinary.EXTENSION);
+        if (model != null) {
+            model.compiled = true;
+        } else {
+            model = fromJson(new InputStreamReader(OBJSON.class.getResourceAsStream(path)));
+        }
         model.name = location.toString();
+        model.path = path;
         model.setNormals();
 
         for (int i = 0; i < model.faces.length; i++) {
             Face face = model.faces[i];
             face.model = model;
-            for (int v = 0; v < model.faces[i].vertices.length; v++) {
-                Vector3 vPos = face.vertices[v].getPos();
-                face.vertices[v].pos = trans.p(vPos).toArray();
+            for (int v = 0; v < face.getVertexCount(); v++) {
+                face.setPos(v, trans.p(face.getPos(v)));
             }
         }
         model.bounds = trans.t(model.bounds);
@@ -49,7 +73,25 @@ public class OBJSON {
         for (int i = 0; i < model.boxes.length; i++) {
             model.boxes[i] = trans.t(model.boxes[i]);
         }
-        model.voxelizer = new OBJSONVoxelizer(model, 16);
+        if (model.hasAuthoritativeBoxes()) {
+            // Authored boxes replace the voxelized collision shape outright, so the model is never voxelized for it.
+            var boxes = Arrays.stream(model.boxes).map(b -> new AABB(b[0], b[1], b[2], b[3], b[4], b[5])).toList();
+            model.voxelized.set(Use.COLLISION.ordinal(), VoxelShapeUtils.fromBoxes(boxes));
+        }
+        return model;
+    }
+
+    /**
+     * Parses an untransformed model from its JSON form.
+     *
+     * @param reader the reader to parse the model from.
+     * @return the parsed model, without normals or any transformation applied.
+     */
+    public static OBJSON fromJson(Reader reader) {
+        OBJSON model = GSON.fromJson(reader, OBJSON.class);
+        for (Face face : model.faces) {
+            face.pack();
+        }
         return model;
     }
 
@@ -63,13 +105,13 @@ public class OBJSON {
         OBJSON out = new OBJSON();
         out.bounds = this.bounds;
         out.boxes = this.boxes;
+        out.authoritativeBoxes = this.authoritativeBoxes;
         out.faces = new Face[this.faces.length];
         for (int i = 0; i < this.faces.length; i++) {
             out.faces[i] = this.faces[i].clone();
             Face face = out.faces[i];
-            for (int v = 0; v < out.faces[i].vertices.length; v++) {
-                Vector3 vPos = face.vertices[v].getPos();
-                face.vertices[v].pos = vPos.add(by).toArray();
+            for (int v = 0; v < face.getVertexCount(); v++) {
+                face.setPos(v, face.getPos(v).add(by));
             }
         }
         return out;
@@ -79,121 +121,368 @@ public class OBJSON {
         return this.faces;
     }
 
-    //public AxisAlignedBB getBounds() {
-    //    return new AxisAlignedBB(this.bounds[0], this.bounds[1], this.bounds[2], this.bounds[3], this.bounds[4], this.bounds[5]);
-    //}
+    public AABB getBounds() {
+        return new AABB(this.bounds[0], this.bounds[1], this.bounds[2], this.bounds[3], this.bounds[4], this.bounds[5]);
+    }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * Determines if the authored boxes of this model are used as its collision shape in place of voxelizing it, set by
+     * <code>authoritativeBoxes</code> in the model.
+     *
+     * @return true if the model has boxes and they are authoritative, false otherwise.
+     */
+    public boolean hasAuthoritativeBoxes() {
+        return this.authoritativeBoxes && this.boxes != null && this.boxes.length > 0;
+    }
+
+    /**
+     * Determines if this model was loaded from its compiled binary form rather than JSON.
+     *
+     * @return true if the model was loaded from a compiled model, false otherwise.
+     */
+    public boolean isCompiled() {
+        return this.compiled;
+    }
+
+    /**
+     * Gets the voxelized collision shape of this model, voxelizing it if it isn't cached.
+     *
+     * @return the voxelized collision shape of this model.
+     */
     public VoxelShape getVoxelized() {
-        if (this.voxelized == null) {
-            String msg = String.format("Voxelizing '%s'", name);
+        return this.getVoxelized(Use.COLLISION, OBJSONVoxelizerExecutor.Priority.BLOCKING);
+    }
+
+    /**
+     * Gets the voxelized shape of this model for the given use, voxelizing it in the given lane of the executor if it
+     * isn't cached.
+     * <p>
+     * Only one caller voxelizes a use at a time, others wait for its result. Background voxelizations only claim a use
+     * once they start running, so a blocking caller never waits behind one that is still queued.
+     * <p>
+     * If voxelization times out the shape falls back to the bounds of the model for good. If it is cancelled, by an
+     * interrupt or the executor shutting down, the bounds are returned without being kept so the next call tries again.
+     *
+     * @param use      the use of the shape, which decides its resolution.
+     * @param priority the priority to voxelize the model with.
+     * @return the voxelized shape of this model.
+     */
+    public VoxelShape getVoxelized(Use use, OBJSONVoxelizerExecutor.Priority priority) {
+        var voxelized = this.voxelized.get(use.ordinal());
+        if (voxelized != null)
+            return voxelized;
+
+        var claim = new CompletableFuture<VoxelShape>();
+        var inFlight = this.inFlightVoxelizations.compareAndExchange(use.ordinal(), null, claim);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            // Checked again now the use is claimed, the last claim may have finished since the first check.
+            voxelized = this.voxelized.get(use.ordinal());
+            if (voxelized == null) {
+                voxelized = this.voxelize(use, priority);
+            }
+            claim.complete(voxelized);
+            return voxelized;
+        } catch (RuntimeException | Error e) {
+            claim.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlightVoxelizations.set(use.ordinal(), null);
+        }
+    }
+
+    private VoxelShape voxelize(Use use, OBJSONVoxelizerExecutor.Priority priority) {
+        int resolution = OBJSONVoxelResolution.get(this, use);
+        // Uses that share a resolution share a shape, unless the shape is made from authored boxes.
+        for (Use other : Use.values()) {
+            var shared = this.voxelized.get(other.ordinal());
+            if (other != use && !this.hasAuthoritativeBoxes() && shared != null
+                    && OBJSONVoxelResolution.get(this, other) == resolution) {
+                return this.publishVoxelized(use, shared);
+            }
+        }
+
+        VoxelOccupancy voxels = null;
+        if (this.path != null) {
+            voxels = OBJSONBakedVoxels.read(OBJSONBakedVoxels.getPath(this.path, resolution), this.getMeshHash(), resolution);
+        }
+        if (voxels == null && this.voxelCache != null) {
+            voxels = this.voxelCache.get(this.getMeshHash(), resolution);
+        }
+        if (voxels == null) {
+            String msg = String.format("Voxelizing '%s' at %s", name, resolution);
             StartupMessageManager.addModMessage(msg);
             ArchitectureLog.info(msg);
             long t0 = System.nanoTime();
-            this.voxelized = this.voxelizer.voxelizeShape();
+            try {
+                voxels = this.getVoxelizer(resolution).voxelizeOccupancy(priority);
+            } catch (CancellationException e) {
+                ArchitectureLog.warn("Voxelization of {} was cancelled, using its bounds until it is voxelized again", this.name);
+                return this.getBoundsShape();
+            }
             long t1 = System.nanoTime();
+            if (voxels == null) {
+                ArchitectureLog.warn("Voxelizing {} took over {} nanos, falling back to its bounds", this.name, t1 - t0);
+                return this.publishVoxelized(use, this.getBoundsShape());
+            }
             ArchitectureLog.info("Voxelized {} in {} nanos", this.name, t1 - t0);
+            if (this.voxelCache != null) {
+                this.voxelCache.put(this.getMeshHash(), voxels);
+            }
         }
-        return this.voxelized;
+        return this.publishVoxelized(use, voxels.toVoxelShape());
+    }
+
+    private VoxelShape publishVoxelized(Use use, VoxelShape voxelized) {
+        var existing = this.voxelized.compareAndExchange(use.ordinal(), null, voxelized);
+        return existing != null ? existing : voxelized;
+    }
+
+    /**
+     * Gets the voxelized shape of this model for the given use without blocking, queuing it to be voxelized in the
+     * background if it isn't ready yet.
+     *
+     * @param use the use of the shape, which decides its resolution.
+     * @return the voxelized shape of this model, or its bounds until voxelization completes.
+     */
+    public VoxelShape getVoxelizedOrBounds(Use use) {
+        var voxelized = this.voxelized.get(use.ordinal());
+        if (voxelized != null)
+            return voxelized;
+
+        synchronized (PENDING_LOCK) {
+            // Queued again if the last attempt was cancelled, such as by the executor shutting down.
+            var pending = this.pendingVoxelizations[use.ordinal()];
+            if (pending == null || pending.isDone()) {
+                this.pendingVoxelizations[use.ordinal()] = OBJSONVoxelizerExecutor.submit(OBJSONVoxelizerExecutor.Priority.BACKGROUND, () -> {
+                    try {
+                        this.getVoxelized(use, OBJSONVoxelizerExecutor.Priority.BACKGROUND);
+                    } catch (Exception e) {
+                        ArchitectureLog.error("Failed to voxelize {} in the background, falling back to its bounds", this.name, e);
+                        this.voxelized.compareAndSet(use.ordinal(), null, this.getBoundsShape());
+                    }
+                    return null;
+                });
+            }
+        }
+        return this.getBoundsShape();
+    }
+
+    /**
+     * Determines if the voxelized shape of this model for the given use is ready, if not
+     * {@link #getVoxelizedOrBounds(Use)} returns the bounds of the model.
+     *
+     * @param use the use of the shape.
+     * @return true if this model has been voxelized, false otherwise.
+     */
+    public boolean isVoxelized(Use use) {
+        return this.voxelized.get(use.ordinal()) != null;
+    }
+
+    /**
+     * Gets a hash of the transformed geometry of every triangle in this model, used to detect when a precomputed
+     * voxelization no longer matches the mesh it was generated from.
+     *
+     * @return the hash of the mesh.
+     */
+    public long getMeshHash() {
+        if (this.meshHash == 0) {
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            for (Face face : this.faces) {
+                for (int v : face.indices) {
+                    hasher.putDouble(face.getPos(v, 0)).putDouble(face.getPos(v, 1)).putDouble(face.getPos(v, 2));
+                }
+            }
+            this.meshHash = hasher.hash().asLong();
+        }
+        return this.meshHash;
     }
 
     public VoxelShape getShape(Trans3 t, VoxelShape shape) {
-        var voxelized = this.getVoxelized();
+        var voxelized = this.getVoxelized(Use.PICKING, OBJSONVoxelizerExecutor.Priority.BLOCKING);
         if (!voxelized.isEmpty()) {
-            for (AABB bb : voxelized.toAabbs()) {
-                shape = Shapes.or(shape, t.t(Shapes.create(bb)));
-            }
+            return Shapes.or(shape, t.t(voxelized));
         } else {
-            return Shapes.or(shape, t.t(Shapes.create(this.bounds[0], this.bounds[1], this.bounds[2], this.bounds[3], this.bounds[4], this.bounds[5])));
+            return Shapes.or(shape, t.t(this.getBoundsShape()));
         }
-        return shape;
+    }
+
+    private VoxelShape getBoundsShape() {
+        return Shapes.create(this.bounds[0], this.bounds[1], this.bounds[2], this.bounds[3], this.bounds[4], this.bounds[5]);
     }
 
     private void setNormals() {
         for (Face face : this.faces) {
-            Vertex[] vertices = face.vertices;
-            Triangle tri = face.triangles[0];
-            face.normal = Vector3.unit(vertices[tri.vertices[1]].getPos().sub(vertices[tri.vertices[0]].getPos())
-                    .cross(vertices[tri.vertices[2]].getPos().sub(vertices[tri.vertices[0]].getPos())));
+            Vector3 v0 = face.getPos(face.getVertexIndex(0, 0));
+            face.normal = Vector3.unit(face.getPos(face.getVertexIndex(0, 1)).sub(v0)
+                    .cross(face.getPos(face.getVertexIndex(0, 2)).sub(v0)));
         }
     }
 
+    /**
+     * Sets the cache used to store voxelizations of this model that aren't baked into the jar.
+     *
+     * @param voxelCache the cache to use, or null to always voxelize.
+     */
+    public void setVoxelCache(OBJSONVoxelCache voxelCache) {
+        this.voxelCache = voxelCache;
+    }
+
+    /**
+     * Gets the voxelizer this model is picked with, see {@link OBJSONVoxelResolution}.
+     *
+     * @return the voxelizer of the picking shape.
+     */
     public OBJSONVoxelizer getVoxelizer() {
-        return this.voxelizer;
+        return this.getVoxelizer(OBJSONVoxelResolution.get(this, Use.PICKING));
+    }
+
+    /**
+     * Gets a voxelizer for this model at the given resolution, created the first time it is needed.
+     *
+     * @param resolution the resolution of the voxelizer, in voxels per block.
+     * @return the voxelizer.
+     */
+    public OBJSONVoxelizer getVoxelizer(int resolution) {
+        return this.voxelizers.computeIfAbsent(resolution, r -> new OBJSONVoxelizer(this, r));
     }
 
+    /**
+     * A face of the model, its vertices are packed into flat arrays so a loaded model holds a handful of arrays per face
+     * rather than a graph of objects per vertex.
+     */
     public class Face {
         OBJSON model;
         int texture;
-        Vertex[] vertices;
-        Triangle[] triangles;
+        // Only set while parsing JSON, packed into the arrays below by pack() and then dropped.
+        JsonVertex[] vertices;
+        JsonTriangle[] triangles;
+        // 3 per vertex.
+        transient double[] positions;
+        // 3 per vertex, packed into floats like the compiled form.
+        transient float[] normals;
+        // 2 per vertex.
+        transient float[] uvs;
+        // 3 vertex indices per triangle.
+        transient int[] indices;
         Vector3 normal;
 
+        void pack() {
+            this.positions = new double[this.vertices.length * 3];
+            this.normals = new float[this.vertices.length * 3];
+            this.uvs = new float[this.vertices.length * 2];
+            for (int v = 0; v < this.vertices.length; v++) {
+                JsonVertex vertex = this.vertices[v];
+                for (int a = 0; a < 3; a++) {
+                    this.positions[v * 3 + a] = vertex.pos[a];
+                    this.normals[v * 3 + a] = (float) vertex.normal[a];
+                }
+                this.uvs[v * 2] = (float) vertex.uv[0];
+                this.uvs[v * 2 + 1] = (float) vertex.uv[1];
+            }
+            this.indices = new int[this.triangles.length * 3];
+            for (int t = 0; t < this.triangles.length; t++) {
+                System.arraycopy(this.triangles[t].vertices, 0, this.indices, t * 3, 3);
+            }
+            this.vertices = null;
+            this.triangles = null;
+        }
+
         public Face clone() {
             Face out = new Face();
 
             out.texture = this.texture;
-            out.vertices = new Vertex[this.vertices.length];
-            out.triangles = new Triangle[this.triangles.length];
+            out.positions = this.positions.clone();
+            out.normals = this.normals.clone();
+            out.uvs = this.uvs.clone();
+            out.indices = this.indices.clone();
             out.normal = new Vector3(this.normal);
 
-            for (int i = 0; i < out.vertices.length; i++) {
-                out.vertices[i] = this.vertices[i].clone();
-            }
-
-            for (int i = 0; i < out.triangles.length; i++) {
-                out.triangles[i] = this.triangles[i].clone();
-            }
-
             return out;
         }
 
         public int getTexture() {
             return this.texture;
         }
-    }
 
-    public class Triangle {
-        int[] vertices;
+        public int getVertexCount() {
+            return this.positions.length / 3;
+        }
 
-        public Triangle clone() {
-            Triangle out = new Triangle();
-            out.vertices = Arrays.copyOf(this.vertices, this.vertices.length);
-            return out;
+        public int getTriangleCount() {
+            return this.indices.length / 3;
         }
-    }
 
-    public class Vertex {
-        double[] pos;
-        double[] normal;
-        double[] uv;
+        /**
+         * Gets the index of a vertex of the given triangle.
+         *
+         * @param triangle the index of the triangle.
+         * @param corner   the corner of the triangle, from 0 to 2.
+         * @return the index of the vertex.
+         */
+        public int getVertexIndex(int triangle, int corner) {
+            return this.indices[triangle * 3 + corner];
+        }
 
-        public Vector3 getPos() {
-            return new Vector3(this.pos[0], this.pos[1], this.pos[2]);
+        /**
+         * Gets a single coordinate of the position of a vertex without allocating.
+         *
+         * @param vertex the index of the vertex.
+         * @param axis   the axis of the coordinate, 0 for X, 1 for Y and 2 for Z.
+         * @return the coordinate.
+         */
+        public double getPos(int vertex, int axis) {
+            return this.positions[vertex * 3 + axis];
         }
 
-        public Vector3 getNormal() {
-            return new Vector3(this.normal[0], this.normal[1], this.normal[2]);
+        public Vector3 getPos(int vertex) {
+            return new Vector3(this.positions[vertex * 3], this.positions[vertex * 3 + 1], this.positions[vertex * 3 + 2]);
         }
 
-        public double getU() {
-            return this.uv[0];
+        public Vector3 getNormal(int vertex) {
+            return new Vector3(this.normals[vertex * 3], this.normals[vertex * 3 + 1], this.normals[vertex * 3 + 2]);
         }
 
-        public double getV() {
-            return this.uv[1];
+        public double getU(int vertex) {
+            return this.uvs[vertex * 2];
         }
 
-        public Vertex clone() {
-            Vertex out = new Vertex();
-            out.pos = Arrays.copyOf(this.pos, this.pos.length);
-            out.normal = Arrays.copyOf(this.normal, this.normal.length);
-            out.uv = Arrays.copyOf(this.uv, this.uv.length);
-            return out;
+        public double getV(int vertex) {
+            return this.uvs[vertex * 2 + 1];
         }
+
+        private void setPos(int vertex, Vector3 pos) {
+            this.positions[vertex * 3] = pos.x;
+            this.positions[vertex * 3 + 1] = pos.y;
+            this.positions[vertex * 3 + 2] = pos.z;
+        }
+    }
+
+    /**
+     * A vertex as written in the JSON form of a model.
+     */
+    private static class JsonVertex {
+        double[] pos;
+        double[] normal;
+        double[] uv;
+    }
+
+    /**
+     * A triangle as written in the JSON form of a model.
+     */
+    private static class JsonTriangle {
+        int[] vertices;
     }
 
 }
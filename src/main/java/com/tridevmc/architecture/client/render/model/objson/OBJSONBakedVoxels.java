@@ -0,0 +1,126 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.ArchitectureLog;
+import com.tridevmc.architecture.common.utils.VoxelOccupancy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes precomputed voxelizations of OBJSON models, generated at build time by {@link OBJSONVoxelBaker}.
+ * <p>
+ * Each bake records the hash of the mesh it was generated from, a bake is only used if that hash and the requested
+ * resolution match the loaded model, otherwise the model is voxelized as normal.
+ * <p>
+ * Layout (big endian):
+ * <pre>
+ * int      magic ('ACVX')
+ * short    version
+ * long     mesh hash, see {@link OBJSON#getMeshHash()}
+ * ...      the voxels, see {@link VoxelOccupancy#write(DataOutputStream)}
+ * int      CRC32 of everything above
+ * </pre>
+ */
+public class OBJSONBakedVoxels {
+
+    public static final String EXTENSION = ".voxels";
+    public static final int MAGIC = 0x41435658;
+    // Bumped whenever the voxelizer changes its results, so stale bakes of unchanged meshes are regenerated.
+    public static final short VERSION = 2;
+
+    /**
+     * Gets the path of the bake of a model at the given resolution.
+     *
+     * @param modelPath  the path of the model.
+     * @param resolution the resolution of the bake.
+     * @return the path of the bake.
+     */
+    public static String getPath(String modelPath, int resolution) {
+        return modelPath + "." + resolution + EXTENSION;
+    }
+
+    /**
+     * Attempts to read the baked voxels for a model from the given resource path.
+     *
+     * @param path       the classpath resource path of the bake.
+     * @param meshHash   the hash of the mesh the voxels are expected to be generated from.
+     * @param resolution the expected resolution of the voxels.
+     * @return the voxels, or null if there is no bake or it is stale or unreadable.
+     */
+    public static VoxelOccupancy read(String path, long meshHash, int resolution) {
+        URL url = OBJSONBakedVoxels.class.getResource(path);
+        if (url == null)
+            return null;
+        try {
+            VoxelOccupancy voxels = read(OBJSONBinary.map(url), meshHash, resolution);
+            if (voxels == null)
+                ArchitectureLog.warn("Baked voxels at {} are stale, they will be regenerated", path);
+            return voxels;
+        } catch (Exception e) {
+            ArchitectureLog.warn("Failed to read baked voxels at {}, they will be regenerated. {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Decodes baked voxels from the given buffer.
+     *
+     * @param buf        the buffer to read from, positioned at the start of the bake.
+     * @param meshHash   the hash of the mesh the voxels are expected to be generated from.
+     * @param resolution the expected resolution of the voxels.
+     * @return the voxels, or null if the bake was generated from a different mesh or at a different resolution.
+     * @throws IOException if the buffer does not contain a valid bake.
+     */
+    public static VoxelOccupancy read(ByteBuffer buf, long meshHash, int resolution) throws IOException {
+        int start = buf.position();
+        if (buf.remaining() < Integer.BYTES * 2 || buf.getInt() != MAGIC)
+            throw new IOException("Bad magic");
+        short version = buf.getShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported version " + version);
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().position(start).limit(buf.limit() - Integer.BYTES));
+        if ((int) crc.getValue() != buf.getInt(buf.limit() - Integer.BYTES))
+            throw new IOException("Checksum mismatch");
+
+        if (buf.getLong() != meshHash)
+            return null;
+        VoxelOccupancy voxels;
+        try {
+            voxels = VoxelOccupancy.read(buf);
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed voxels", e);
+        }
+        return voxels.getResolution() == resolution ? voxels : null;
+    }
+
+    /**
+     * Encodes the given voxels into the bake format.
+     *
+     * @param meshHash the hash of the mesh the voxels were generated from.
+     * @param voxels   the voxels to write.
+     * @param out      the stream to write to.
+     * @throws IOException if the stream could not be written.
+     */
+    public static void write(long meshHash, VoxelOccupancy voxels, OutputStream out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeLong(meshHash);
+        voxels.write(data);
+        data.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        data.writeInt((int) crc.getValue());
+        data.flush();
+        bytes.writeTo(out);
+    }
+}
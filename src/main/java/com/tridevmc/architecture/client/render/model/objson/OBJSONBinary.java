@@ -0,0 +1,172 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.ArchitectureLog;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes the packed binary form of an OBJSON model, generated at build time by {@link OBJSONCompiler}.
+ * <p>
+ * Positions are kept at full precision as the voxelizer is sensitive to them, everything else is packed into floats.
+ * Faces are read straight into the packed arrays a loaded model keeps, see {@link OBJSON.Face}.
+ * <p>
+ * Layout (big endian):
+ * <pre>
+ * int      magic ('ACOB')
+ * short    version
+ * int      box count, followed by 6 doubles per box (the first box is the model bounds)
+ * byte     1 if the boxes are authoritative, 0 otherwise
+ * int      face count, followed by each face:
+ *   int    texture
+ *   short  vertex count, short triangle count
+ *   double 3 per vertex position, followed by float 5 per vertex (normal xyz, uv)
+ *   short  3 unsigned vertex indices per triangle
+ * </pre>
+ */
+public class OBJSONBinary {
+
+    public static final String EXTENSION = ".objsonb";
+    public static final int MAGIC = 0x41434F42;
+    public static final short VERSION = 2;
+
+    /**
+     * Attempts to read the compiled form of the model at the given resource path.
+     *
+     * @param path the classpath resource path of the compiled model.
+     * @return the model, or null if there is no compiled model or it could not be read.
+     */
+    public static OBJSON read(String path) {
+        URL url = OBJSONBinary.class.getResource(path);
+        if (url == null)
+            return null;
+        try {
+            return read(map(url));
+        } catch (Exception e) {
+            ArchitectureLog.warn("Failed to read compiled model {}, falling back to JSON. {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Decodes a model from the given buffer.
+     *
+     * @param buf the buffer to read from, positioned at the start of the model.
+     * @return the decoded model.
+     * @throws IOException if the buffer does not contain a model of the supported version.
+     */
+    public static OBJSON read(ByteBuffer buf) throws IOException {
+        if (buf.getInt() != MAGIC)
+            throw new IOException("Bad magic");
+        short version = buf.getShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported version " + version);
+
+        OBJSON model = new OBJSON();
+        int boxCount = buf.getInt();
+        model.bounds = readBox(buf);
+        model.boxes = new double[boxCount - 1][];
+        for (int i = 0; i < model.boxes.length; i++) {
+            model.boxes[i] = readBox(buf);
+        }
+        model.authoritativeBoxes = buf.get() != 0;
+
+        model.faces = new OBJSON.Face[buf.getInt()];
+        for (int f = 0; f < model.faces.length; f++) {
+            OBJSON.Face face = model.new Face();
+            face.texture = buf.getInt();
+            int vertexCount = Short.toUnsignedInt(buf.getShort());
+            int triangleCount = Short.toUnsignedInt(buf.getShort());
+            face.positions = new double[vertexCount * 3];
+            face.normals = new float[vertexCount * 3];
+            face.uvs = new float[vertexCount * 2];
+            for (int v = 0; v < vertexCount; v++) {
+                for (int a = 0; a < 3; a++)
+                    face.positions[v * 3 + a] = buf.getDouble();
+                for (int a = 0; a < 3; a++)
+                    face.normals[v * 3 + a] = buf.getFloat();
+                for (int a = 0; a < 2; a++)
+                    face.uvs[v * 2 + a] = buf.getFloat();
+            }
+            face.indices = new int[triangleCount * 3];
+            for (int i = 0; i < face.indices.length; i++) {
+                face.indices[i] = Short.toUnsignedInt(buf.getShort());
+            }
+            model.faces[f] = face;
+        }
+        return model;
+    }
+
+    /**
+     * Encodes the given untransformed model into the binary format.
+     *
+     * @param model the model to write, as parsed from JSON.
+     * @param out   the stream to write to.
+     * @throws IOException if the stream could not be written or the model exceeds the limits of the format.
+     */
+    public static void write(OBJSON model, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+
+        double[][] boxes = model.boxes == null ? new double[0][] : model.boxes;
+        data.writeInt(boxes.length + 1);
+        writeBox(data, model.bounds);
+        for (double[] box : boxes) {
+            writeBox(data, box);
+        }
+        data.writeByte(model.authoritativeBoxes ? 1 : 0);
+
+        data.writeInt(model.faces.length);
+        for (OBJSON.Face face : model.faces) {
+            if (face.getVertexCount() > 0xFFFF || face.getTriangleCount() > 0xFFFF)
+                throw new IOException("Face is too large to be compiled");
+            data.writeInt(face.texture);
+            data.writeShort(face.getVertexCount());
+            data.writeShort(face.getTriangleCount());
+            for (int v = 0; v < face.getVertexCount(); v++) {
+                for (int a = 0; a < 3; a++)
+                    data.writeDouble(face.positions[v * 3 + a]);
+                for (int a = 0; a < 3; a++)
+                    data.writeFloat(face.normals[v * 3 + a]);
+                for (int a = 0; a < 2; a++)
+                    data.writeFloat(face.uvs[v * 2 + a]);
+            }
+            for (int i : face.indices)
+                data.writeShort(i);
+        }
+        data.flush();
+    }
+
+    /**
+     * Maps the given resource into memory if it lives on the default filesystem, otherwise reads it into a heap buffer.
+     * Resources inside of a jar can't be mapped, but are still cheaper to read than to parse as JSON.
+     */
+    static ByteBuffer map(URL url) throws Exception {
+        if ("file".equals(url.getProtocol())) {
+            try (FileChannel channel = FileChannel.open(Path.of(url.toURI()), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+
+    private static double[] readBox(ByteBuffer buf) {
+        return new double[]{buf.getDouble(), buf.getDouble(), buf.getDouble(), buf.getDouble(), buf.getDouble(), buf.getDouble()};
+    }
+
+    private static void writeBox(DataOutputStream data, double[] box) throws IOException {
+        for (int i = 0; i < 6; i++) {
+            data.writeDouble(box[i]);
+        }
+    }
+}
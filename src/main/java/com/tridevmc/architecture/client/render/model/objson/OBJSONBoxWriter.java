@@ -0,0 +1,95 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.phys.AABB;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Authoring tool that writes the merged voxel boxes of every OBJSON model without authored boxes back into its source,
+ * so the boxes can be reviewed and hand tuned rather than voxelized on every load.
+ * <p>
+ * Invoked by the <code>writeCollisionBoxes</code> Gradle task with the resource root as its argument, the resource root
+ * must also be on the classpath. Passing <code>--authoritative</code> also marks the written boxes as the collision shape
+ * of their model, see {@link OBJSON#hasAuthoritativeBoxes()}. Models that already have boxes are left untouched.
+ */
+public class OBJSONBoxWriter {
+
+    private static final Pattern EMPTY_BOXES = Pattern.compile("\"boxes\"\\s*:\\s*\\[\\s*]");
+    private static final Pattern BOUNDS = Pattern.compile("\"bounds\"\\s*:\\s*\\[[^]]*]");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2 || (args.length == 2 && !args[1].equals("--authoritative"))) {
+            System.err.println("Usage: OBJSONBoxWriter <resource root> [--authoritative]");
+            System.exit(1);
+        }
+        Path sourceRoot = Path.of(args[0]);
+        boolean authoritative = args.length == 2;
+
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(sourceRoot.resolve("data"))) {
+            sources = files.filter(p -> p.toString().endsWith(".objson")).toList();
+        }
+
+        var gson = new GsonBuilder().setPrettyPrinting().create();
+        int written = 0;
+        for (Path source : sources) {
+            String text = Files.readString(source, StandardCharsets.UTF_8);
+            JsonObject json = JsonParser.parseString(text).getAsJsonObject();
+            if (json.has("boxes") && json.getAsJsonArray("boxes").size() > 0)
+                continue;
+
+            // data/<namespace>/objson/<path>
+            Path relative = sourceRoot.resolve("data").relativize(source);
+            String namespace = relative.getName(0).toString();
+            String path = relative.subpath(2, relative.getNameCount()).toString().replace('\\', '/');
+            OBJSON model = OBJSON.fromResource(new ResourceLocation(namespace, path));
+            int resolution = OBJSONVoxelResolution.getAutomatic(model, OBJSONVoxelResolution.Use.COLLISION);
+            List<AABB> boxes = model.getVoxelizer(resolution).voxelizeOccupancy().toMergedBoxes();
+            if (boxes.isEmpty())
+                continue;
+
+            // Models are stored relative to the block center, see OBJSON#fromResource.
+            var boxesJson = new JsonArray();
+            for (AABB box : boxes) {
+                var boxJson = new JsonArray();
+                boxJson.add(box.minX - 0.5);
+                boxJson.add(box.minY - 0.5);
+                boxJson.add(box.minZ - 0.5);
+                boxJson.add(box.maxX - 0.5);
+                boxJson.add(box.maxY - 0.5);
+                boxJson.add(box.maxZ - 0.5);
+                boxesJson.add(boxJson);
+            }
+
+            // Splice the boxes in as text beside the bounds, rewriting the whole document would reformat it.
+            String boxesText = "\"boxes\": " + gson.toJson(boxesJson).replace("\n", "\n  ")
+                    + (authoritative ? ",\n  \"authoritativeBoxes\": true" : "");
+            if (EMPTY_BOXES.matcher(text).find()) {
+                text = EMPTY_BOXES.matcher(text).replaceFirst(Matcher.quoteReplacement(boxesText));
+            } else {
+                Matcher bounds = BOUNDS.matcher(text);
+                if (!bounds.find()) {
+                    System.err.printf("Skipping %s, it has no bounds%n", source);
+                    continue;
+                }
+                text = text.substring(0, bounds.end()) + ",\n  " + boxesText + text.substring(bounds.end());
+            }
+            Files.writeString(source, text, StandardCharsets.UTF_8);
+            written++;
+        }
+        System.out.printf("Wrote collision boxes to %d of %d OBJSON models%n", written, sources.size());
+        System.exit(0);
+    }
+}
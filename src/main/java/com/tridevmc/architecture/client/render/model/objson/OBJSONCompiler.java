@@ -0,0 +1,48 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Build time tool that compiles every OBJSON model under a resource root into the binary format read by {@link OBJSONBinary}.
+ * <p>
+ * Invoked by the <code>compileObjson</code> Gradle task with the resource root and the output root as arguments,
+ * the output mirrors the layout of the input so the compiled models sit next to their JSON counterparts in the jar.
+ */
+public class OBJSONCompiler {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: OBJSONCompiler <resource root> <output root>");
+            System.exit(1);
+        }
+        Path sourceRoot = Path.of(args[0]);
+        Path outputRoot = Path.of(args[1]);
+
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(sourceRoot)) {
+            sources = files.filter(p -> p.toString().endsWith(".objson")).toList();
+        }
+
+        long jsonBytes = 0, compiledBytes = 0;
+        for (Path source : sources) {
+            Path target = outputRoot.resolve(sourceRoot.relativize(source).toString() + OBJSONBinary.EXTENSION);
+            Files.createDirectories(target.getParent());
+            OBJSON model;
+            try (Reader reader = Files.newBufferedReader(source)) {
+                model = OBJSON.fromJson(reader);
+            }
+            try (OutputStream out = Files.newOutputStream(target)) {
+                OBJSONBinary.write(model, out);
+            }
+            jsonBytes += Files.size(source);
+            compiledBytes += Files.size(target);
+        }
+        System.out.printf("Compiled %d OBJSON models, %d bytes -> %d bytes%n", sources.size(), jsonBytes, compiledBytes);
+    }
+}
@@ -4,6 +4,7 @@ import com.mojang.math.Transformation;
 import com.tridevmc.architecture.client.render.model.IArchitectureModel;
 import com.tridevmc.architecture.client.render.model.data.ArchitectureModelData;
 import com.tridevmc.architecture.client.render.model.data.ArchitectureModelDataQuads;
+import com.tridevmc.architecture.common.helpers.Vector3;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.block.model.BakedQuad;
 import net.minecraft.client.renderer.texture.MissingTextureAtlasSprite;
@@ -44,8 +45,8 @@ public abstract class OBJSONModel implements IArchitectureModel<OBJSONQuadMetada
         for (Tuple<Integer, OBJSON.Face> indexedFace : mappedFaces) {
             int faceIndex = indexedFace.getA();
             OBJSON.Face face = indexedFace.getB();
-            for (OBJSON.Triangle tri : face.triangles) {
-                this.addTri(this.convertedModelData, faceIndex, face.texture, 0, tri, face.vertices);
+            for (int tri = 0; tri < face.getTriangleCount(); tri++) {
+                this.addTri(this.convertedModelData, faceIndex, face.texture, 0, face, tri);
             }
         }
 
@@ -94,19 +95,21 @@ public abstract class OBJSONModel implements IArchitectureModel<OBJSONQuadMetada
         data.addQuadInstruction(meta, Direction.UP, maxX, maxY, minZ);
     }
 
-    private void addTri(ArchitectureModelData modelData, int face, int texture, int colour, OBJSON.Triangle tri, OBJSON.Vertex[] vertices) {
+    private void addTri(ArchitectureModelData modelData, int face, int texture, int colour, OBJSON.Face objsonFace, int tri) {
         for (int i = 0; i < 3; i++) {
-            int vertexIndex = tri.vertices[i];
-            OBJSON.Vertex vertex = vertices[vertexIndex];
+            int vertex = objsonFace.getVertexIndex(tri, i);
+            Vector3 pos = objsonFace.getPos(vertex);
             var metadata = new OBJSONQuadMetadata(texture, colour);
             if (this.generateUVs && this.generateNormals) {
-                modelData.addTriInstruction(metadata, face, null, vertex.getPos().x, vertex.getPos().y, vertex.getPos().z);
+                modelData.addTriInstruction(metadata, face, null, pos.x, pos.y, pos.z);
             } else if (this.generateUVs) {
-                modelData.addTriInstruction(metadata, face, null, vertex.getPos().x, vertex.getPos().y, vertex.getPos().z, vertex.getNormal().x, vertex.getNormal().y, vertex.getNormal().z);
+                Vector3 normal = objsonFace.getNormal(vertex);
+                modelData.addTriInstruction(metadata, face, null, pos.x, pos.y, pos.z, normal.x, normal.y, normal.z);
             } else if (this.generateNormals) {
-                modelData.addTriInstruction(metadata, face, null, vertex.getPos().x, vertex.getPos().y, vertex.getPos().z, vertex.getU() * 16, vertex.getV() * 16);
+                modelData.addTriInstruction(metadata, face, null, pos.x, pos.y, pos.z, objsonFace.getU(vertex) * 16, objsonFace.getV(vertex) * 16);
             } else {
-                modelData.addTriInstruction(metadata, face, null, vertex.getPos().x, vertex.getPos().y, vertex.getPos().z, vertex.getU() * 16, vertex.getV() * 16, vertex.getNormal().x, vertex.getNormal().y, vertex.getNormal().z);
+                Vector3 normal = objsonFace.getNormal(vertex);
+                modelData.addTriInstruction(metadata, face, null, pos.x, pos.y, pos.z, objsonFace.getU(vertex) * 16, objsonFace.getV(vertex) * 16, normal.x, normal.y, normal.z);
             }
         }
     }
@@ -0,0 +1,78 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.utils.VoxelOccupancy;
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Build time tool that voxelizes every OBJSON model under a resource root at each of its automatic resolutions, see
+ * {@link OBJSONVoxelResolution}, writing the results in the format read by {@link OBJSONBakedVoxels}.
+ * <p>
+ * Invoked by the <code>bakeVoxels</code> Gradle task with the resource root and the output root as arguments, the resource
+ * root must also be on the classpath so models are loaded exactly as they are at runtime. Existing bakes whose mesh hash
+ * still matches their model are kept, anything else is regenerated.
+ */
+public class OBJSONVoxelBaker {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: OBJSONVoxelBaker <resource root> <output root>");
+            System.exit(1);
+        }
+        Path sourceRoot = Path.of(args[0]);
+        Path outputRoot = Path.of(args[1]);
+
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(sourceRoot.resolve("data"))) {
+            sources = files.filter(p -> p.toString().endsWith(".objson")).toList();
+        }
+
+        int baked = 0, kept = 0;
+        long t0 = System.nanoTime();
+        for (Path source : sources) {
+            // data/<namespace>/objson/<path>
+            Path relative = sourceRoot.resolve("data").relativize(source);
+            String namespace = relative.getName(0).toString();
+            String path = relative.subpath(2, relative.getNameCount()).toString().replace('\\', '/');
+            OBJSON model = OBJSON.fromResource(new ResourceLocation(namespace, path));
+            int[] resolutions = Arrays.stream(OBJSONVoxelResolution.Use.values())
+                    .filter(use -> use != OBJSONVoxelResolution.Use.COLLISION || !model.hasAuthoritativeBoxes())
+                    .mapToInt(use -> OBJSONVoxelResolution.getAutomatic(model, use))
+                    .distinct().toArray();
+            for (int resolution : resolutions) {
+                Path target = outputRoot.resolve(OBJSONBakedVoxels.getPath(sourceRoot.relativize(source).toString(), resolution));
+                if (isUpToDate(target, model.getMeshHash(), resolution)) {
+                    kept++;
+                    continue;
+                }
+
+                VoxelOccupancy voxels = model.getVoxelizer(resolution).voxelizeOccupancy();
+                Files.createDirectories(target.getParent());
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    OBJSONBakedVoxels.write(model.getMeshHash(), voxels, out);
+                }
+                baked++;
+            }
+        }
+        System.out.printf("Baked %d voxelizations of %d OBJSON models in %d ms, %d were up to date%n", baked, sources.size(), (System.nanoTime() - t0) / 1000000, kept);
+        System.exit(0);
+    }
+
+    private static boolean isUpToDate(Path target, long meshHash, int resolution) {
+        if (!Files.exists(target))
+            return false;
+        try {
+            return OBJSONBakedVoxels.read(ByteBuffer.wrap(Files.readAllBytes(target)), meshHash, resolution) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.ArchitectureLog;
+import com.tridevmc.architecture.common.utils.VoxelOccupancy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An on-disk cache of voxelized models, used for models that don't have a matching bake in the jar such as those
+ * added or overridden by datapacks.
+ * <p>
+ * Entries are stored in the same format as {@link OBJSONBakedVoxels} and keyed by the hash of the mesh they were
+ * generated from and their resolution, entries that fail to read or don't match their key are deleted and rebuilt.
+ */
+public class OBJSONVoxelCache {
+
+    private final Path directory;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public OBJSONVoxelCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the cached voxels for the given mesh.
+     *
+     * @param meshHash   the hash of the mesh, see {@link OBJSON#getMeshHash()}.
+     * @param resolution the resolution of the voxels.
+     * @return the cached voxels, or null if there is no valid entry.
+     */
+    public VoxelOccupancy get(long meshHash, int resolution) {
+        Path file = this.getPath(meshHash, resolution);
+        if (!Files.isRegularFile(file)) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+
+        VoxelOccupancy voxels = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+            while (buf.hasRemaining()) {
+                if (channel.read(buf) < 0)
+                    break;
+            }
+            voxels = OBJSONBakedVoxels.read(buf.flip(), meshHash, resolution);
+            if (voxels == null)
+                ArchitectureLog.warn("Cached voxels at {} are stale, rebuilding", file);
+        } catch (IOException e) {
+            ArchitectureLog.warn("Cached voxels at {} are corrupt, rebuilding. {}", file, e);
+        }
+
+        if (voxels == null) {
+            this.delete(file);
+            this.misses.incrementAndGet();
+        } else {
+            this.hits.incrementAndGet();
+        }
+        return voxels;
+    }
+
+    /**
+     * Stores voxels for the given mesh in the cache, replacing any existing entry.
+     *
+     * @param meshHash the hash of the mesh the voxels were generated from.
+     * @param voxels   the voxels to store.
+     */
+    public void put(long meshHash, VoxelOccupancy voxels) {
+        Path file = this.getPath(meshHash, voxels.getResolution());
+        try {
+            Files.createDirectories(this.directory);
+            Path temp = Files.createTempFile(this.directory, file.getFileName().toString(), ".tmp");
+            boolean moved = false;
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    OBJSONBakedVoxels.write(meshHash, voxels, out);
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                moved = true;
+            } finally {
+                // Otherwise every failed write would leave a temporary file behind in the cache.
+                if (!moved)
+                    this.delete(temp);
+            }
+        } catch (IOException e) {
+            ArchitectureLog.warn("Failed to write cached voxels to {}. {}", file, e);
+        }
+    }
+
+    public void logStatistics() {
+        int hits = this.hits.get();
+        int lookups = hits + this.misses.get();
+        if (lookups > 0) {
+            ArchitectureLog.info("Voxel cache served {} of {} lookups ({}% hit rate)", hits, lookups, Math.round(100D * hits / lookups));
+        }
+    }
+
+    private Path getPath(long meshHash, int resolution) {
+        return this.directory.resolve(String.format("%016x-%d%s", meshHash, resolution, OBJSONBakedVoxels.EXTENSION));
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            ArchitectureLog.warn("Failed to delete cached voxels at {}. {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Chooses the resolution each model is voxelized at, so simple models stay cheap and detailed models keep their detail.
+ * <p>
+ * Every model is voxelized for two uses: a coarse shape for entity collision and a fine one for ray picking. Models made
+ * only of axis aligned faces with every vertex on a grid are voxelized exactly at that grid. Curved models, those with
+ * many sloped face directions, collide at a coarser resolution than they are picked at, and models with a lot of
+ * triangles are picked at the finest resolution.
+ */
+public final class OBJSONVoxelResolution {
+
+    /**
+     * The resolutions models can be voxelized at, in voxels per block.
+     */
+    public static final int[] RESOLUTIONS = {4, 8, 16, 32};
+
+    private static final int DEFAULT_RESOLUTION = 16;
+    private static final int CURVED_COLLISION_RESOLUTION = 8;
+    private static final int MAX_COLLISION_RESOLUTION = 16;
+    private static final int CURVED_NORMALS = 8;
+    private static final int DETAILED_TRIANGLES = 512;
+
+    private static Map<String, int[]> overrides = Map.of();
+
+    private OBJSONVoxelResolution() {
+    }
+
+    public enum Use {
+        /**
+         * The shape entities collide with.
+         */
+        COLLISION,
+        /**
+         * The shape rays are picked against, and the outline drawn around the block.
+         */
+        PICKING
+    }
+
+    /**
+     * Sets the resolutions used for specific models in place of the automatic choice.
+     *
+     * @param overrides the resolutions to use for each model name, indexed by {@link Use#ordinal()}.
+     */
+    public static synchronized void configure(Map<String, int[]> overrides) {
+        OBJSONVoxelResolution.overrides = Map.copyOf(overrides);
+    }
+
+    /**
+     * Parses a resolution override of the form <code>model=resolution</code> or
+     * <code>model=collision,picking</code>, for example <code>architecturecraft:shape/slab.objson=4</code>.
+     *
+     * @param override the override to parse.
+     * @param into     the map to add the override to.
+     * @return true if the override was valid, false otherwise.
+     */
+    public static boolean parseOverride(String override, Map<String, int[]> into) {
+        int split = override.lastIndexOf('=');
+        if (split <= 0)
+            return false;
+        String[] values = override.substring(split + 1).split(",");
+        if (values.length > 2)
+            return false;
+        int[] resolutions = new int[2];
+        try {
+            resolutions[0] = Integer.parseInt(values[0].trim());
+            resolutions[1] = values.length == 2 ? Integer.parseInt(values[1].trim()) : resolutions[0];
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (!isResolution(resolutions[0]) || !isResolution(resolutions[1]))
+            return false;
+        into.put(override.substring(0, split).trim(), resolutions);
+        return true;
+    }
+
+    /**
+     * Gets the resolution the given model is voxelized at for the given use, taking overrides into account.
+     *
+     * @param model the model to get the resolution of.
+     * @param use   the use of the voxelized shape.
+     * @return the resolution of the model, in voxels per block.
+     */
+    public static int get(OBJSON model, Use use) {
+        int[] override;
+        synchronized (OBJSONVoxelResolution.class) {
+            override = overrides.get(model.getName());
+        }
+        return override != null ? override[use.ordinal()] : getAutomatic(model, use);
+    }
+
+    /**
+     * Chooses the resolution of the given model for the given use from its geometry alone.
+     *
+     * @param model the model to get the resolution of.
+     * @param use   the use of the voxelized shape.
+     * @return the resolution of the model, in voxels per block.
+     */
+    public static int getAutomatic(OBJSON model, Use use) {
+        int lattice = getLatticeResolution(model);
+        if (lattice > 0)
+            return use == Use.COLLISION ? Math.min(lattice, MAX_COLLISION_RESOLUTION) : lattice;
+
+        if (use == Use.COLLISION)
+            return getSlopedNormalCount(model) >= CURVED_NORMALS ? CURVED_COLLISION_RESOLUTION : DEFAULT_RESOLUTION;
+        int triangles = 0;
+        for (OBJSON.Face face : model.faces) {
+            triangles += face.getTriangleCount();
+        }
+        return triangles >= DETAILED_TRIANGLES ? RESOLUTIONS[RESOLUTIONS.length - 1] : DEFAULT_RESOLUTION;
+    }
+
+    private static boolean isResolution(int resolution) {
+        for (int r : RESOLUTIONS) {
+            if (r == resolution)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the coarsest resolution that voxelizes the model exactly, the model must only have axis aligned faces and
+     * every vertex must lie on the grid.
+     *
+     * @return the resolution, or 0 if no resolution voxelizes the model exactly.
+     */
+    private static int getLatticeResolution(OBJSON model) {
+        for (OBJSON.Face face : model.faces) {
+            if (!isAxisAligned(face))
+                return 0;
+        }
+        resolutions:
+        for (int resolution : RESOLUTIONS) {
+            for (OBJSON.Face face : model.faces) {
+                for (double c : face.positions) {
+                    double cell = c * resolution;
+                    if (Math.abs(cell - Math.rint(cell)) > 1E-6)
+                        continue resolutions;
+                }
+            }
+            return resolution;
+        }
+        return 0;
+    }
+
+    /**
+     * Counts the distinct directions of faces that are not axis aligned, curved surfaces have many.
+     */
+    private static int getSlopedNormalCount(OBJSON model) {
+        var normals = new HashSet<Long>();
+        for (OBJSON.Face face : model.faces) {
+            if (isAxisAligned(face))
+                continue;
+            // Quantize the normal so the faces of a flat slope share a direction.
+            long x = Math.round(face.normal.x * 1024) & 0xFFFFF;
+            long y = Math.round(face.normal.y * 1024) & 0xFFFFF;
+            long z = Math.round(face.normal.z * 1024) & 0xFFFFF;
+            normals.add(x << 40 | y << 20 | z);
+        }
+        return normals.size();
+    }
+
+    private static boolean isAxisAligned(OBJSON.Face face) {
+        int axes = 0;
+        if (Math.abs(face.normal.x) > 1E-6)
+            axes++;
+        if (Math.abs(face.normal.y) > 1E-6)
+            axes++;
+        if (Math.abs(face.normal.z) > 1E-6)
+            axes++;
+        return axes == 1;
+    }
+}
@@ -1,49 +1,68 @@
 package com.tridevmc.architecture.client.render.model.objson;
 
 import com.google.common.collect.ImmutableList;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelizerExecutor.Priority;
 import com.tridevmc.architecture.common.ArchitectureLog;
-import com.tridevmc.architecture.common.utils.AABBTree;
+import com.tridevmc.architecture.common.utils.BVH;
+import com.tridevmc.architecture.common.utils.FastWindingNumber;
 import com.tridevmc.architecture.common.utils.MiscUtils;
-import it.unimi.dsi.fastutil.Pair;
+import com.tridevmc.architecture.common.utils.LatticeBatchKernel;
+import com.tridevmc.architecture.common.utils.LatticePredicates;
+import com.tridevmc.architecture.common.utils.LatticeTriangleBatch;
+import com.tridevmc.architecture.common.utils.VoxelOccupancy;
 import net.minecraft.core.Vec3i;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
-import net.minecraft.world.phys.shapes.BooleanOp;
-import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
  * Reads an OBJSON object and converts it into voxels.
  * <p>
- * Implementation of SAT based off of https://gdbooks.gitbooks.io/3dcollisions/content/Chapter4/aabb-triangle.html
+ * Vertices are snapped to a fixed point lattice, and triangle/box intersection and the ray cast inside test are
+ * evaluated exactly on it, see {@link LatticePredicates}. A triangle has to reach 1/32 of a cell into a cell to make it
+ * solid, so a surface lying on the border between two cells doesn't fill both of them.
  */
 public class OBJSONVoxelizer {
 
-    private static final ExecutorService POOL = Executors.newWorkStealingPool();
-
-    private static final Vec3 xNormal = new Vec3(1, 0, 0);
-    private static final Vec3 yNormal = new Vec3(0, 1, 0);
-    private static final Vec3 zNormal = new Vec3(0, 0, 1);
+    private static final int MIRROR_SAMPLES = 64;
+    private static final int OCTREE_REGION_SIZE = 8;
+    private static final int MIN_EXTRUSION_LENGTH = 4;
 
     private final OBJSON objson;
     private final Mesh mesh;
     private final int blockResolution;
+    private final long cellSize, inset;
     private final Vec3i min, max;
+    private final InsideTest insideTest;
+    private final LatticeBatchKernel batchKernel;
 
     public OBJSONVoxelizer(OBJSON objson, int blockResolution) {
+        this(objson, blockResolution, InsideTest.RAYCAST);
+    }
+
+    public OBJSONVoxelizer(OBJSON objson, int blockResolution, InsideTest insideTest) {
+        if (blockResolution <= 0 || LatticePredicates.LATTICE % (blockResolution * 32) != 0)
+            throw new IllegalArgumentException("Resolution " + blockResolution + " does not divide the lattice into cells");
         this.objson = objson;
         this.blockResolution = blockResolution;
+        this.cellSize = LatticePredicates.LATTICE / blockResolution;
+        this.inset = this.cellSize / 32;
+        this.insideTest = insideTest;
         this.mesh = new Mesh(Arrays.stream(objson.getFaces())
-                .flatMap((Function<OBJSON.Face, Stream<UnpackedTri>>) face -> Arrays.stream(face.triangles)
-                        .map(t -> new UnpackedTri(face, t, 1D / (blockResolution * 64))))
+                .flatMap((Function<OBJSON.Face, Stream<UnpackedTri>>) face -> IntStream.range(0, face.getTriangleCount())
+                        .mapToObj(t -> new UnpackedTri(face, t)))
                 .collect(Collectors.toList()));
 
         var xEdges = MiscUtils.getEdges(this.mesh.tris.stream().flatMapToDouble(t -> Arrays.stream(t.getXs())));
@@ -60,48 +79,732 @@ public class OBJSONVoxelizer {
 
         this.min = new Vec3i(minX, minY, minZ);
         this.max = new Vec3i(maxX, maxY, maxZ);
+        this.batchKernel = this.isExactInBatches() ? LatticeBatchKernel.get() : null;
+    }
+
+    /**
+     * Determines if every coordinate the surface test sees is small enough for {@link LatticeTriangleBatch} to hold
+     * exactly.
+     */
+    private boolean isExactInBatches() {
+        long extent = 0;
+        for (UnpackedTri tri : this.mesh.tris) {
+            for (long bound : tri.bounds) {
+                extent = Math.max(extent, Math.abs(bound));
+            }
+        }
+        for (Vec3i corner : new Vec3i[]{this.min, this.max}) {
+            extent = Math.max(extent, Math.abs(corner.getX() * this.cellSize));
+            extent = Math.max(extent, Math.abs(corner.getY() * this.cellSize));
+            extent = Math.max(extent, Math.abs(corner.getZ() * this.cellSize));
+        }
+        return extent <= LatticeTriangleBatch.MAX_EXACT_COORDINATE;
     }
 
     public VoxelShape voxelizeShape() {
-        var aabbs = voxelize();
-        return aabbs.stream()
-                .map(Shapes::create)
-                .reduce((a, b) -> Shapes.joinUnoptimized(a, b, BooleanOp.OR))
-                .orElse(Shapes.empty())
-                .optimize();
+        return voxelizeOccupancy().toVoxelShape();
     }
 
     public List<AABB> voxelize() {
+        return voxelizeOccupancy().toMergedBoxes();
+    }
+
+    public VoxelOccupancy voxelizeOccupancy() {
+        return this.voxelizeOccupancy(Strategy.EXTRUSION);
+    }
+
+    /**
+     * Voxelizes the model using the given strategy, every strategy produces the same voxels.
+     *
+     * @param strategy the strategy to voxelize with.
+     * @return the solid voxels of the model.
+     */
+    public VoxelOccupancy voxelizeOccupancy(Strategy strategy) {
+        return this.voxelizeOccupancy(strategy, new Job(Priority.BLOCKING, OBJSONVoxelizerExecutor.NO_DEADLINE));
+    }
+
+    /**
+     * Voxelizes the model in the given lane of the executor, giving up once the configured timeout has passed.
+     *
+     * @param priority the priority to queue the work with.
+     * @return the solid voxels of the model, or null if voxelization timed out.
+     * @throws CancellationException if voxelization was cancelled before it timed out, by the waiting thread being
+     *                               interrupted or the executor shutting down.
+     */
+    public VoxelOccupancy voxelizeOccupancy(Priority priority) {
+        try {
+            return this.voxelizeOccupancy(Strategy.EXTRUSION, new Job(priority, OBJSONVoxelizerExecutor.getDeadline()));
+        } catch (OBJSONVoxelizerExecutor.DeadlineExceededException e) {
+            ArchitectureLog.warn("Voxelization of {} did not complete: {}", this.objson.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private VoxelOccupancy voxelizeOccupancy(Strategy strategy, Job job) {
+        return switch (strategy) {
+            case PER_VOXEL -> this.voxelizePerVoxel(job);
+            case SCANLINE -> this.voxelizeScanline(job, false, false);
+            case SYMMETRIC -> this.voxelizeSymmetric(job);
+            case OCTREE -> this.voxelizeOctree(job);
+            case EXTRUSION -> this.voxelizeExtrusion(job);
+        };
+    }
+
+    /**
+     * Waits for the results of the given tasks, rethrowing any failure and cancelling them all once the deadline of the
+     * job has passed.
+     */
+    private <T> List<T> await(Job job, List<Future<T>> futures) {
+        try {
+            return OBJSONVoxelizerExecutor.awaitAll(futures, job.deadline());
+        } catch (ExecutionException e) {
+            ArchitectureLog.error("Failed to voxelize model {}, throwing exception", this.objson.getName());
+            throw new RuntimeException("Failed to voxelize " + this.objson.getName(), e);
+        }
+    }
+
+    private VoxelOccupancy voxelizePerVoxel(Job job) {
         var dimensions = this.max.subtract(this.min);
-        var futures = new ArrayList<Future<AABB>>(dimensions.getX() * dimensions.getY() * dimensions.getZ());
+        var futures = new ArrayList<Future<Vec3i>>(dimensions.getX() * dimensions.getY() * dimensions.getZ());
         for (int y = this.min.getY(); y < this.max.getY(); y++) {
             for (int x = this.min.getX(); x < this.max.getX(); x++) {
                 for (int z = this.min.getZ(); z < this.max.getZ(); z++) {
-                    var box = getBoxForOffset(x, y, z);
-                    futures.add(POOL.submit(() -> {
+                    var cell = new Vec3i(x, y, z);
+                    var box = getBoxForOffset(cell);
+                    futures.add(OBJSONVoxelizerExecutor.submit(job.priority(), () -> {
                         if (isBoxValidVoxel(box)) {
-                            return box;
+                            return cell;
                         }
                         return null;
                     }));
                 }
             }
         }
-        return futures.stream()
-                .map(f -> {
-                    try {
-                        return f.get();
-                    } catch (Exception e) {
-                        ArchitectureLog.error("Failed to voxelize model {}, throwing exception", this.objson.getName());
-                        throw new RuntimeException("Failed to voxelize " + this.objson.getName(), e);
-                    }
-                })
-                .filter(Objects::nonNull)
+        var out = new VoxelOccupancy(this.blockResolution, this.min, this.max);
+        for (var cell : this.await(job, futures)) {
+            if (cell != null) {
+                out.set(cell.getX(), cell.getY(), cell.getZ());
+            }
+        }
+        return out;
+    }
+
+    private VoxelOccupancy voxelizeExtrusion(Job job) {
+        int axis = this.getExtrusionAxis();
+        if (axis < 0)
+            return this.voxelizeSymmetric(job);
+
+        // Voxelize the profile at both ends and in the middle, they only differ if the prism test was fooled by rounding.
+        int start = getAxis(this.min, axis), end = getAxis(this.max, axis);
+        var layerTris = this.getLayerTriangles();
+        var futures = IntStream.of(start, (start + end) / 2, end - 1)
+                .mapToObj(i -> OBJSONVoxelizerExecutor.submit(job.priority(), () -> this.voxelizeSlice(axis, i, layerTris)))
                 .toList();
+        var slices = this.await(job, futures);
+        var profile = slices.get(1);
+        if (!this.isSameProfile(profile, slices.get(0), axis) || !this.isSameProfile(profile, slices.get(2), axis)) {
+            ArchitectureLog.debug("Profile of {} changes along its length, voxelizing it in full", this.objson.getName());
+            return this.voxelizeSymmetric(job);
+        }
+
+        var out = new VoxelOccupancy(this.blockResolution, this.min, this.max);
+        int[] cell = new int[3];
+        for (cell[0] = this.min.getX(); cell[0] < this.max.getX(); cell[0]++) {
+            for (cell[1] = this.min.getY(); cell[1] < this.max.getY(); cell[1]++) {
+                for (cell[2] = this.min.getZ(); cell[2] < this.max.getZ(); cell[2]++) {
+                    int along = cell[axis];
+                    cell[axis] = getAxis(profile.getMin(), axis);
+                    boolean solid = profile.get(cell[0], cell[1], cell[2]);
+                    cell[axis] = along;
+                    if (solid)
+                        out.set(cell[0], cell[1], cell[2]);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Finds an axis the model is a prism along, every vertex lies on one of the two faces of the grid across the axis
+     * and every triangle either lies in one of those faces or runs parallel to the axis.
+     *
+     * @return the axis, 0 for X, 1 for Y or 2 for Z, or -1 if the model is not a prism.
+     */
+    private int getExtrusionAxis() {
+        for (int axis = 0; axis < 3; axis++) {
+            int start = getAxis(this.min, axis), end = getAxis(this.max, axis);
+            if (end - start < MIN_EXTRUSION_LENGTH)
+                continue;
+            long low = start * this.cellSize, high = end * this.cellSize;
+            boolean prism = !this.mesh.tris.isEmpty();
+            for (int i = 0; prism && i < this.mesh.tris.size(); i++) {
+                UnpackedTri tri = this.mesh.tris.get(i);
+                int onLow = 0, onHigh = 0;
+                for (int v = 0; v < 3; v++) {
+                    long coordinate = tri.lattice[v * 3 + axis];
+                    if (coordinate == low) {
+                        onLow++;
+                    } else if (coordinate == high) {
+                        onHigh++;
+                    }
+                }
+                prism = onLow + onHigh == 3 && (onLow == 3 || onHigh == 3 || tri.isParallelTo(axis));
+            }
+            if (prism)
+                return axis;
+        }
+        return -1;
+    }
+
+    /**
+     * Voxelizes the single slice of the grid across the given axis at the given cell.
+     */
+    private VoxelOccupancy voxelizeSlice(int axis, int i, List<List<UnpackedTri>> layerTris) {
+        if (axis == 1)
+            return this.voxelizeLayer(i, layerTris.get(i - this.min.getY()), this.min.getX(), this.max.getX(), this.min.getZ(), this.max.getZ());
+
+        var slice = new VoxelOccupancy(this.blockResolution,
+                axis == 0 ? i : this.min.getX(), this.min.getY(), axis == 2 ? i : this.min.getZ(),
+                axis == 0 ? 1 : this.max.getX() - this.min.getX(), this.max.getY() - this.min.getY(), axis == 2 ? 1 : this.max.getZ() - this.min.getZ());
+        int startX = axis == 0 ? i : this.min.getX(), endX = axis == 0 ? i + 1 : this.max.getX();
+        int startZ = axis == 2 ? i : this.min.getZ(), endZ = axis == 2 ? i + 1 : this.max.getZ();
+        for (int y = this.min.getY(); y < this.max.getY(); y++) {
+            var layer = this.voxelizeLayer(y, layerTris.get(y - this.min.getY()), startX, endX, startZ, endZ);
+            for (int x = startX; x < endX; x++) {
+                for (int z = startZ; z < endZ; z++) {
+                    if (layer.get(x, y, z))
+                        slice.set(x, y, z);
+                }
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * Determines if two slices across the given axis have the same cells set.
+     */
+    private boolean isSameProfile(VoxelOccupancy a, VoxelOccupancy b, int axis) {
+        int[] cellA = new int[3], cellB = new int[3];
+        Vec3i sliceMin = a.getMin(), sliceMax = a.getMax();
+        for (cellA[0] = sliceMin.getX(); cellA[0] < sliceMax.getX(); cellA[0]++) {
+            for (cellA[1] = sliceMin.getY(); cellA[1] < sliceMax.getY(); cellA[1]++) {
+                for (cellA[2] = sliceMin.getZ(); cellA[2] < sliceMax.getZ(); cellA[2]++) {
+                    System.arraycopy(cellA, 0, cellB, 0, 3);
+                    cellB[axis] = getAxis(b.getMin(), axis);
+                    if (a.get(cellA[0], cellA[1], cellA[2]) != b.get(cellB[0], cellB[1], cellB[2]))
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int getAxis(Vec3i v, int axis) {
+        return axis == 0 ? v.getX() : axis == 1 ? v.getY() : v.getZ();
+    }
+
+    private VoxelOccupancy voxelizeOctree(Job job) {
+        // Each top level region is classified independently into its own occupancy, then copied into the output. Rows
+        // are shared between regions so each row's ray is only cast once.
+        var rows = new AtomicReferenceArray<RowCrossings>((this.max.getY() - this.min.getY()) * (this.max.getZ() - this.min.getZ()));
+        var futures = new ArrayList<Future<VoxelOccupancy>>();
+        for (int x = this.min.getX(); x < this.max.getX(); x += OCTREE_REGION_SIZE) {
+            for (int y = this.min.getY(); y < this.max.getY(); y += OCTREE_REGION_SIZE) {
+                for (int z = this.min.getZ(); z < this.max.getZ(); z += OCTREE_REGION_SIZE) {
+                    int rx = x, ry = y, rz = z;
+                    futures.add(OBJSONVoxelizerExecutor.submit(job.priority(), () -> this.voxelizeOctreeRegion(rows, rx, ry, rz)));
+                }
+            }
+        }
+        var out = new VoxelOccupancy(this.blockResolution, this.min, this.max);
+        for (var region : this.await(job, futures)) {
+            Vec3i regionMin = region.getMin(), regionMax = region.getMax();
+            for (int x = regionMin.getX(); x < regionMax.getX(); x++) {
+                for (int y = regionMin.getY(); y < regionMax.getY(); y++) {
+                    for (int z = regionMin.getZ(); z < regionMax.getZ(); z++) {
+                        if (region.get(x, y, z))
+                            out.set(x, y, z);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    private VoxelOccupancy voxelizeOctreeRegion(AtomicReferenceArray<RowCrossings> rows, int x, int y, int z) {
+        var region = new VoxelOccupancy(this.blockResolution, x, y, z,
+                Math.min(OCTREE_REGION_SIZE, this.max.getX() - x),
+                Math.min(OCTREE_REGION_SIZE, this.max.getY() - y),
+                Math.min(OCTREE_REGION_SIZE, this.max.getZ() - z));
+        var cube = this.getDeflatedCube(x, y, z, OCTREE_REGION_SIZE);
+        var found = new ArrayList<Integer>();
+        this.mesh.search(cube, i -> {
+            if (this.mesh.getTriangle(i).intersects(cube))
+                found.add(i);
+            return true;
+        });
+        int[] candidates = found.stream().mapToInt(Integer::intValue).toArray();
+        this.voxelizeOctreeNode(region, rows, x, y, z, OCTREE_REGION_SIZE, candidates, candidates.length);
+        return region;
+    }
+
+    /**
+     * Classifies a cube of cells against the mesh, recursing into its octants only while it touches the surface.
+     * <p>
+     * A cube that no triangle intersects has no surface cells, so only the inside test is left for its cells. The ray
+     * cast inside test is not constant across such a cube for meshes that are open or overlap themselves, so each row of
+     * the cube is filled from the crossings of the ray along it, cast once per row of the region.
+     *
+     * @param candidates the triangles that intersect the parent cube, only these can intersect this one.
+     */
+    private void voxelizeOctreeNode(VoxelOccupancy out, AtomicReferenceArray<RowCrossings> rows, int x0, int y0, int z0, int size,
+                                    int[] candidates, int candidateCount) {
+        int x1 = Math.min(x0 + size, this.max.getX());
+        int y1 = Math.min(y0 + size, this.max.getY());
+        int z1 = Math.min(z0 + size, this.max.getZ());
+        if (x0 >= x1 || y0 >= y1 || z0 >= z1)
+            return;
+
+        // Every deflated cell lies within the deflated cube, so if no triangle intersects the cube none intersect its cells.
+        var cube = this.getDeflatedCube(x0, y0, z0, size);
+        if (size == 1) {
+            for (int i = 0; i < candidateCount; i++) {
+                if (this.intersectsCube(candidates[i], cube)) {
+                    out.set(x0, y0, z0);
+                    return;
+                }
+            }
+        } else {
+            int[] touching = new int[candidateCount];
+            int touchingCount = 0;
+            for (int i = 0; i < candidateCount; i++) {
+                if (this.intersectsCube(candidates[i], cube))
+                    touching[touchingCount++] = candidates[i];
+            }
+            if (touchingCount > 0) {
+                int half = size / 2;
+                for (int octant = 0; octant < 8; octant++) {
+                    this.voxelizeOctreeNode(out, rows, x0 + ((octant & 1) == 0 ? 0 : half), y0 + ((octant & 2) == 0 ? 0 : half),
+                            z0 + ((octant & 4) == 0 ? 0 : half), half, touching, touchingCount);
+                }
+                return;
+            }
+        }
+
+        for (int y = y0; y < y1; y++) {
+            for (int z = z0; z < z1; z++) {
+                int i = (y - this.min.getY()) * (this.max.getZ() - this.min.getZ()) + (z - this.min.getZ());
+                var row = rows.get(i);
+                if (row == null) {
+                    row = new RowCrossings();
+                    if (this.insideTest == InsideTest.RAYCAST)
+                        this.castRow(row, y, z);
+                    // Another region may have cast the same row in the meantime, either result is the same.
+                    if (!rows.compareAndSet(i, null, row))
+                        row = rows.get(i);
+                }
+                this.fillSpan(out, row, y, z, x0, x1);
+            }
+        }
+    }
+
+    private boolean intersectsCube(int triangle, long[] cube) {
+        return this.mesh.getTriangle(triangle).intersects(cube);
+    }
+
+    /**
+     * Gets a cube of cells on the lattice, inset like the cells themselves are before testing them against the surface.
+     *
+     * @return the bounds of the cube, as {minX, minY, minZ, maxX, maxY, maxZ} in lattice units.
+     */
+    private long[] getDeflatedCube(int x, int y, int z, int size) {
+        int x1 = Math.min(x + size, this.max.getX());
+        int y1 = Math.min(y + size, this.max.getY());
+        int z1 = Math.min(z + size, this.max.getZ());
+        return new long[]{x * this.cellSize + this.inset, y * this.cellSize + this.inset, z * this.cellSize + this.inset,
+                x1 * this.cellSize - this.inset, y1 * this.cellSize - this.inset, z1 * this.cellSize - this.inset};
+    }
+
+    private VoxelOccupancy voxelizeSymmetric(Job job) {
+        // Only planes parallel to the X axis are used, each row is cast along X so the inside test is not symmetric
+        // across X for meshes that are not closed.
+        boolean mirrorY = this.isMirrorSymmetric(1);
+        boolean mirrorZ = this.isMirrorSymmetric(2);
+        if (!mirrorY && !mirrorZ)
+            return this.voxelizeScanline(job, false, false);
+
+        var out = this.voxelizeScanline(job, mirrorY, mirrorZ);
+        if (this.isMirrorValid(out, mirrorY, mirrorZ))
+            return out;
+        ArchitectureLog.debug("Mirrored voxels of {} did not match the model, voxelizing it in full", this.objson.getName());
+        return this.voxelizeScanline(job, false, false);
+    }
+
+    /**
+     * Voxelizes the model a layer at a time, optionally only voxelizing the lower half of the grid on the Y and Z axes
+     * and mirroring it into the upper half.
+     */
+    private VoxelOccupancy voxelizeScanline(Job job, boolean mirrorY, boolean mirrorZ) {
+        int endY = mirrorY ? this.getMirrorEnd(this.min.getY(), this.max.getY()) : this.max.getY();
+        int endZ = mirrorZ ? this.getMirrorEnd(this.min.getZ(), this.max.getZ()) : this.max.getZ();
+
+        var layerTris = this.getLayerTriangles();
+        var futures = new ArrayList<Future<VoxelOccupancy>>(layerTris.size());
+        for (int y = this.min.getY(); y < endY; y++) {
+            int layerY = y;
+            futures.add(OBJSONVoxelizerExecutor.submit(job.priority(), () -> this.voxelizeLayer(layerY, layerTris.get(layerY - this.min.getY()),
+                    this.min.getX(), this.max.getX(), this.min.getZ(), endZ)));
+        }
+        var layers = this.await(job, futures);
+        var out = new VoxelOccupancy(this.blockResolution, this.min, this.max);
+        for (int y = this.min.getY(); y < endY; y++) {
+            var layer = layers.get(y - this.min.getY());
+            int my = this.getMirror(y, mirrorY, this.min.getY(), this.max.getY());
+            for (int x = this.min.getX(); x < this.max.getX(); x++) {
+                for (int z = this.min.getZ(); z < endZ; z++) {
+                    if (layer.get(x, y, z)) {
+                        int mz = this.getMirror(z, mirrorZ, this.min.getZ(), this.max.getZ());
+                        out.set(x, y, z);
+                        out.set(x, my, z);
+                        out.set(x, y, mz);
+                        out.set(x, my, mz);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Buckets the triangles by the layers of the grid they overlap.
+     *
+     * @return the triangles of each layer, from the lowest layer up.
+     */
+    private List<List<UnpackedTri>> getLayerTriangles() {
+        int layerCount = Math.max(0, this.max.getY() - this.min.getY());
+        var layerTris = new ArrayList<List<UnpackedTri>>(layerCount);
+        for (int i = 0; i < layerCount; i++) {
+            layerTris.add(new ArrayList<>());
+        }
+        for (UnpackedTri tri : this.mesh.tris) {
+            int y0 = Math.max(this.min.getY(), this.getFirstCell(tri.bounds[1]));
+            int y1 = Math.min(this.max.getY() - 1, this.getLastCell(tri.bounds[4]));
+            for (int y = y0; y <= y1; y++) {
+                layerTris.get(y - this.min.getY()).add(tri);
+            }
+        }
+        return layerTris;
+    }
+
+    /**
+     * Voxelizes the cells of a layer between startX and endX, and startZ and endZ.
+     */
+    private VoxelOccupancy voxelizeLayer(int y, List<UnpackedTri> tris, int startX, int endX, int startZ, int endZ) {
+        int sizeX = this.max.getX() - this.min.getX();
+        int sizeZ = this.max.getZ() - this.min.getZ();
+        var layer = new VoxelOccupancy(this.blockResolution, this.min.getX(), y, this.min.getZ(), sizeX, 1, sizeZ);
+        if (this.batchKernel != null) {
+            this.voxelizeSurfaceBatched(layer, y, tris, startX, endX, startZ, endZ);
+        } else {
+            this.voxelizeSurface(layer, y, tris, startX, endX, startZ, endZ);
+        }
+
+        // Interior cells, one ray per row along the X axis with the crossings sorted once. Like isPointWithinPolyhedron
+        // each cell is inside if its nearest crossing faces away from it, which fills the spans between crossings.
+        var row = new RowCrossings();
+        for (int z = startZ; z < endZ; z++) {
+            this.fillRow(layer, row, y, z, startX, endX);
+        }
+        return layer;
+    }
+
+    /**
+     * Finds the surface cells of a layer one triangle at a time, only cells that overlap the bounds of a triangle can
+     * intersect it.
+     */
+    private void voxelizeSurface(VoxelOccupancy layer, int y, List<UnpackedTri> tris, int startX, int endX, int startZ, int endZ) {
+        long minY = y * this.cellSize + this.inset, maxY = minY + this.cellSize - 2 * this.inset;
+        for (UnpackedTri tri : tris) {
+            int x0 = Math.max(startX, this.getFirstCell(tri.bounds[0]));
+            int z0 = Math.max(startZ, this.getFirstCell(tri.bounds[2]));
+            int x1 = Math.min(endX - 1, this.getLastCell(tri.bounds[3]));
+            int z1 = Math.min(endZ - 1, this.getLastCell(tri.bounds[5]));
+            for (int x = x0; x <= x1; x++) {
+                long minX = x * this.cellSize + this.inset, maxX = minX + this.cellSize - 2 * this.inset;
+                for (int z = z0; z <= z1; z++) {
+                    if (layer.get(x, y, z))
+                        continue;
+                    long minZ = z * this.cellSize + this.inset, maxZ = minZ + this.cellSize - 2 * this.inset;
+                    if (LatticePredicates.intersects(tri.lattice, minX, minY, minZ, maxX, maxY, maxZ))
+                        layer.set(x, y, z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the surface cells of a layer with the batch kernel. Each triangle is copied into every cell its bounds
+     * overlap, so the triangles of each cell are contiguous and tested against it together.
+     */
+    private void voxelizeSurfaceBatched(VoxelOccupancy layer, int y, List<UnpackedTri> tris, int startX, int endX, int startZ, int endZ) {
+        int sizeZ = endZ - startZ;
+        int[] offsets = new int[(endX - startX) * sizeZ + 1];
+        for (UnpackedTri tri : tris) {
+            int x0 = Math.max(startX, this.getFirstCell(tri.bounds[0])), x1 = Math.min(endX - 1, this.getLastCell(tri.bounds[3]));
+            int z0 = Math.max(startZ, this.getFirstCell(tri.bounds[2])), z1 = Math.min(endZ - 1, this.getLastCell(tri.bounds[5]));
+            for (int x = x0; x <= x1; x++) {
+                for (int z = z0; z <= z1; z++) {
+                    offsets[(x - startX) * sizeZ + (z - startZ) + 1]++;
+                }
+            }
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+
+        var cellTris = new UnpackedTri[offsets[offsets.length - 1]];
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (UnpackedTri tri : tris) {
+            int x0 = Math.max(startX, this.getFirstCell(tri.bounds[0])), x1 = Math.min(endX - 1, this.getLastCell(tri.bounds[3]));
+            int z0 = Math.max(startZ, this.getFirstCell(tri.bounds[2])), z1 = Math.min(endZ - 1, this.getLastCell(tri.bounds[5]));
+            for (int x = x0; x <= x1; x++) {
+                for (int z = z0; z <= z1; z++) {
+                    cellTris[next[(x - startX) * sizeZ + (z - startZ)]++] = tri;
+                }
+            }
+        }
+        var batch = new LatticeTriangleBatch(cellTris.length);
+        for (UnpackedTri tri : cellTris) {
+            batch.add(tri.lattice);
+        }
+
+        long minY = y * this.cellSize + this.inset, maxY = minY + this.cellSize - 2 * this.inset;
+        for (int x = startX; x < endX; x++) {
+            long minX = x * this.cellSize + this.inset, maxX = minX + this.cellSize - 2 * this.inset;
+            for (int z = startZ; z < endZ; z++) {
+                int cell = (x - startX) * sizeZ + (z - startZ);
+                if (offsets[cell] == offsets[cell + 1])
+                    continue;
+                long minZ = z * this.cellSize + this.inset, maxZ = minZ + this.cellSize - 2 * this.inset;
+                if (this.batchKernel.intersectsAny(batch, offsets[cell], offsets[cell + 1], minX, minY, minZ, maxX, maxY, maxZ))
+                    layer.set(x, y, z);
+            }
+        }
+    }
+
+    /**
+     * Gets the first cell whose inset box can touch something starting at the given coordinate.
+     */
+    private int getFirstCell(long min) {
+        return (int) Math.floorDiv(min + this.inset - 1, this.cellSize);
+    }
+
+    /**
+     * Gets the last cell whose inset box can touch something ending at the given coordinate.
+     */
+    private int getLastCell(long max) {
+        return (int) Math.floorDiv(max - this.inset, this.cellSize);
+    }
+
+    /**
+     * Gets the center of the given cell on one axis, in lattice units.
+     */
+    private long getCellCenter(int cell) {
+        return cell * this.cellSize + this.cellSize / 2;
+    }
+
+    private void fillRow(VoxelOccupancy out, RowCrossings row, int y, int z, int startX, int endX) {
+        int firstEmpty = startX;
+        while (firstEmpty < endX && out.get(firstEmpty, y, z))
+            firstEmpty++;
+        if (firstEmpty == endX)
+            return;
+        this.fillSpan(out, this.insideTest == InsideTest.RAYCAST ? this.castRow(row, y, z) : row, y, z, firstEmpty, endX);
+    }
+
+    /**
+     * Casts the ray along the given row, storing its crossings in the given row.
+     *
+     * @return the given row.
+     */
+    private RowCrossings castRow(RowCrossings row, int y, int z) {
+        return this.castRow(row, this.getCellCenter(y), this.getCellCenter(z));
+    }
+
+    /**
+     * Finds every crossing of the line along the X axis through the given point on the lattice with the mesh, sorted
+     * along the line.
+     *
+     * @return the given row.
+     */
+    private RowCrossings castRow(RowCrossings row, long y, long z) {
+        row.y = y;
+        row.z = z;
+        row.count = 0;
+        var bounds = this.mesh.getBounds();
+        long[] crossing = row.crossing;
+        this.mesh.getBVH().search(bounds.minX - 1, (y - 1D) / LatticePredicates.LATTICE, (z - 1D) / LatticePredicates.LATTICE,
+                bounds.maxX + 1, (y + 1D) / LatticePredicates.LATTICE, (z + 1D) / LatticePredicates.LATTICE, i -> {
+                    if (LatticePredicates.crossesLineX(this.mesh.getTriangle(i).lattice, y, z, crossing))
+                        row.add(i, crossing[0], crossing[1]);
+                    return true;
+                });
+        row.sort();
+        return row;
+    }
+
+    /**
+     * Fills the cells of a row between x0 (inclusive) and x1 (exclusive) that are inside the model, skipping cells that
+     * are already set. The row is only used by the ray cast inside test.
+     */
+    private void fillSpan(VoxelOccupancy out, RowCrossings row, int y, int z, int x0, int x1) {
+        if (this.insideTest == InsideTest.WINDING_NUMBER) {
+            for (int x = x0; x < x1; x++) {
+                if (!out.get(x, y, z) && this.isPointInside(this.getBoxForOffset(x, y, z).getCenter()))
+                    out.set(x, y, z);
+            }
+            return;
+        }
+
+        if (row.count == 0)
+            return;
+        int next = 0;
+        for (int x = x0; x < x1; x++) {
+            if (out.get(x, y, z))
+                continue;
+            long point = this.getCellCenter(x);
+            while (next < row.count && row.compareTo(next, point) < 0)
+                next++;
+            if (this.isInside(row, next, point))
+                out.set(x, y, z);
+        }
+    }
+
+    /**
+     * Determines if the given point on a row is inside the mesh, it is if any of its nearest crossings faces away from
+     * it.
+     *
+     * @param next the first crossing at or after the point.
+     * @param x    the x coordinate of the point, in lattice units.
+     */
+    private boolean isInside(RowCrossings row, int next, long x) {
+        int left = next - 1, right = next;
+        if (left < 0 && right >= row.count)
+            return false;
+        // The distances to the crossings either side of the point, as fractions over the denominators of the crossings.
+        int nearer = left < 0 ? 1 : right >= row.count ? -1 : LatticePredicates.compareProducts(
+                x * row.denominators[left] - row.numerators[left], row.denominators[right],
+                row.numerators[right] - x * row.denominators[right], row.denominators[left]);
+        // The nearest crossings are the run of equal crossings on the nearer side, or on both sides if they tie.
+        if (nearer <= 0) {
+            for (int i = left; i >= 0 && row.compare(i, left) == 0; i--) {
+                if (this.mesh.getTriangle(row.primitives[i]).isFacing(x, row.y, row.z))
+                    return true;
+            }
+        }
+        if (nearer >= 0) {
+            for (int i = right; i < row.count && row.compare(i, right) == 0; i++) {
+                if (this.mesh.getTriangle(row.primitives[i]).isFacing(x, row.y, row.z))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if the model is its own mirror image across the plane through the middle of the grid on the given axis.
+     * <p>
+     * Faces are compared rather than triangles, as a mirrored quad is split along its other diagonal. Vertices are
+     * compared on the lattice.
+     *
+     * @param axis the axis to mirror along, 0 for X, 1 for Y or 2 for Z.
+     * @return true if every face has a mirrored counterpart, false otherwise.
+     */
+    private boolean isMirrorSymmetric(int axis) {
+        int min = axis == 0 ? this.min.getX() : axis == 1 ? this.min.getY() : this.min.getZ();
+        int max = axis == 0 ? this.max.getX() : axis == 1 ? this.max.getY() : this.max.getZ();
+        if (max - min < 2)
+            return false;
+
+        long sum = (min + max) * this.cellSize;
+        // A mirror image has the same centroid, which rules out most models without building the set of faces.
+        long total = 0;
+        int count = 0;
+        for (OBJSON.Face face : this.objson.getFaces()) {
+            for (int v = 0; v < face.getVertexCount(); v++) {
+                total += LatticePredicates.snap(face.getPos(v, axis));
+                count++;
+            }
+        }
+        if (total * 2 != count * sum)
+            return false;
+
+        var faces = new HashSet<MirrorKey>(this.objson.getFaces().length * 2);
+        for (OBJSON.Face face : this.objson.getFaces()) {
+            faces.add(MirrorKey.of(face, axis, false, sum));
+        }
+        for (OBJSON.Face face : this.objson.getFaces()) {
+            if (!faces.contains(MirrorKey.of(face, axis, true, sum)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks a sample of the cells filled in by mirroring against the per voxel test, in case the mirrored faces were
+     * split into triangles differently.
+     */
+    private boolean isMirrorValid(VoxelOccupancy voxels, boolean mirrorY, boolean mirrorZ) {
+        int endY = mirrorY ? this.getMirrorEnd(this.min.getY(), this.max.getY()) : this.max.getY();
+        int endZ = mirrorZ ? this.getMirrorEnd(this.min.getZ(), this.max.getZ()) : this.max.getZ();
+        int count = (this.max.getY() - this.min.getY()) * (this.max.getX() - this.min.getX()) * (this.max.getZ() - this.min.getZ());
+        // An odd stride drifts across rows and layers, so the sample is spread through the whole grid.
+        int stride = Math.max(1, count / MIRROR_SAMPLES) | 1;
+        for (int i = 0; i < count; i += stride) {
+            int x = this.min.getX() + i % (this.max.getX() - this.min.getX());
+            int z = this.min.getZ() + (i / (this.max.getX() - this.min.getX())) % (this.max.getZ() - this.min.getZ());
+            int y = this.min.getY() + i / ((this.max.getX() - this.min.getX()) * (this.max.getZ() - this.min.getZ()));
+            if (y < endY && z < endZ)
+                continue;
+            if (voxels.get(x, y, z) != this.isBoxValidVoxel(this.getBoxForOffset(x, y, z)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the exclusive end of the half of the given range that is voxelized when mirroring, including the middle
+     * cell of odd ranges.
+     */
+    private int getMirrorEnd(int min, int max) {
+        return min + (max - min + 1) / 2;
+    }
+
+    private int getMirror(int i, boolean mirror, int min, int max) {
+        return mirror ? min + max - 1 - i : i;
     }
 
     public boolean isBoxValidVoxel(AABB box) {
-        return doesBoxIntersect(box) || isPointWithinPolyhedron(box.getCenter());
+        return doesBoxIntersect(box) || isPointInside(box.getCenter());
+    }
+
+    /**
+     * Determines if the given point is inside the model using the inside test this voxelizer was created with.
+     */
+    public boolean isPointInside(Vec3 point) {
+        return switch (this.insideTest) {
+            case RAYCAST -> this.isPointWithinPolyhedron(point);
+            case WINDING_NUMBER -> this.getWindingNumber(point) >= 0.5D;
+        };
+    }
+
+    /**
+     * Gets the winding number of the model around the given point, see {@link FastWindingNumber}.
+     *
+     * @return about 1 for points inside the model and about 0 for points outside it.
+     */
+    public double getWindingNumber(Vec3 point) {
+        return this.mesh.getWindingNumber().getWindingNumber(point.x, point.y, point.z);
     }
 
     public AABB getBoxForOffset(Vec3i offset) {
@@ -116,37 +819,38 @@ public class OBJSONVoxelizer {
         return new AABB(bX, bY, bZ, bX + resolution, bY + resolution, bZ + resolution);
     }
 
+    /**
+     * Determines if the given box, snapped to the lattice and inset like a cell, intersects the surface of the model.
+     */
     public boolean doesBoxIntersect(AABB box) {
-        return getIntersectingTris(box.deflate(1D / (blockResolution * 32))).findAny().isPresent();
+        long[] bounds = toLattice(box, this.inset);
+        return !this.mesh.search(bounds, i -> !this.mesh.getTriangle(i).intersects(bounds));
     }
 
     public Stream<UnpackedTri> getIntersectingTris(AABB box) {
-        return this.mesh.search(box).stream().filter(t -> t.intersects(box));
+        long[] bounds = toLattice(box, 0);
+        var out = new ArrayList<UnpackedTri>();
+        this.mesh.search(bounds, i -> !this.mesh.getTriangle(i).intersects(bounds) || out.add(this.mesh.getTriangle(i)));
+        return out.stream();
     }
 
     private boolean isPointWithinPolyhedron(Vec3 point) {
-        var meshBounds = this.mesh.getBounds();
-        var fromPoint = new Vec3(meshBounds.minX - 1, point.y, point.z);
-        var toPoint = new Vec3(meshBounds.maxX + 1, point.y, point.z);
-        var rayDirection = toPoint.subtract(fromPoint);
-        var ray = new Ray(fromPoint, rayDirection);
-
-        var hits = ray.intersect(this.mesh)
-                .map(h -> {
-                    var hit = h.rounded();
-                    return Pair.of(hit, hit.distanceTo(point));
-                })
-                .sorted(Comparator.comparingDouble(Pair::right))
-                .toList();
-        double minDistance = hits.size() > 0 ? hits.get(0).right() : Double.MAX_VALUE;
-        for (var hitData : hits) {
-            if (hitData.right() > minDistance) {
-                return false;
-            } else if (hitData.left().tri.isFacing(point)) {
-                return true;
-            }
-        }
-        return false;
+        long x = LatticePredicates.snap(point.x);
+        var row = this.castRow(new RowCrossings(), LatticePredicates.snap(point.y), LatticePredicates.snap(point.z));
+        int next = 0;
+        while (next < row.count && row.compareTo(next, x) < 0)
+            next++;
+        return this.isInside(row, next, x);
+    }
+
+    /**
+     * Snaps the given box to the lattice, inset on every side by the given amount.
+     *
+     * @return the bounds of the box, as {minX, minY, minZ, maxX, maxY, maxZ} in lattice units.
+     */
+    private static long[] toLattice(AABB box, long inset) {
+        return new long[]{LatticePredicates.snap(box.minX) + inset, LatticePredicates.snap(box.minY) + inset, LatticePredicates.snap(box.minZ) + inset,
+                LatticePredicates.snap(box.maxX) - inset, LatticePredicates.snap(box.maxY) - inset, LatticePredicates.snap(box.maxZ) - inset};
     }
 
     public OBJSON getObjson() {
@@ -169,126 +873,195 @@ public class OBJSONVoxelizer {
         return max;
     }
 
-    private static double getFastWindingNumber(Mesh polyhedron, Vec3 point) {
-        return getFastWindingNumber(polyhedron.getRoot(), point);
+    public InsideTest getInsideTest() {
+        return insideTest;
     }
 
-    private static double getFastWindingNumber(AABBTree<UnpackedTri>.Node node, Vec3 point) {
-        // Fast Approximation of Winding Number: https://www.dgp.toronto.edu/projects/fast-winding-numbers/fast-winding-numbers-for-soups-and-clouds-siggraph-2018-barill-et-al.pdf
-        // I have no clue how any of this works, I just tried my best to implement it based on the pseudocode in the paper.
-        //var tolerance = 2;
-        //var treeBounds = node.getValue();
-        //var treeP = treeBounds.getCenter();
-        //var treeR = (Math.pow(treeBounds.getXsize(), 2) + Math.pow(treeBounds.getYsize(), 2) + Math.pow(treeBounds.getZsize(), 2)) / 2;
-        //if (point.subtract(treeP).length() > (treeR * tolerance) && treeR != 0) {
-        //    // q is sufficiently far from all elements in tree.
-        //    var dist = treeP.subtract(point).length();
-        //    return treeP.subtract(point).dot(polyhedron.meanNormal) / (4 * Math.PI * dist * dist * dist);
-        //} else {
-        //    var value = 0;
-        //    if()
-        //}
-        return 0;
-    }
+    /**
+     * An order independent key for the vertices of a face, used to find the mirror image of each face.
+     */
+    private record MirrorKey(long[] vertices) {
+        /**
+         * Creates a key for the given face, optionally mirrored so that the coordinate c on the axis becomes sum - c.
+         * Vertices are snapped to the lattice.
+         */
+        private static MirrorKey of(OBJSON.Face face, int axis, boolean mirrored, long sum) {
+            long[][] vertices = new long[face.getVertexCount()][3];
+            for (int i = 0; i < vertices.length; i++) {
+                for (int a = 0; a < 3; a++) {
+                    long value = LatticePredicates.snap(face.getPos(i, a));
+                    vertices[i][a] = a == axis && mirrored ? sum - value : value;
+                }
+            }
+            Arrays.sort(vertices, Arrays::compare);
+            long[] key = new long[vertices.length * 3];
+            for (int i = 0; i < vertices.length; i++) {
+                System.arraycopy(vertices[i], 0, key, i * 3, 3);
+            }
+            return new MirrorKey(key);
+        }
 
-    private static boolean testSeparatingAxis(Vec3 v0, Vec3 v1, Vec3 v2, Vec3 axis, Vec3 aabbSize) {
-        double v0Projection = v0.dot(axis);
-        double v1Projection = v1.dot(axis);
-        double v2Projection = v2.dot(axis);
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MirrorKey that && Arrays.equals(this.vertices, that.vertices);
+        }
 
-        double r = aabbSize.x * Math.abs(xNormal.dot(axis)) +
-                aabbSize.y * Math.abs(yNormal.dot(axis)) +
-                aabbSize.z * Math.abs(zNormal.dot(axis));
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.vertices);
+        }
+    }
 
-        double[] projections = new double[]{v0Projection, v1Projection, v2Projection};
-        return Math.max(-Arrays.stream(projections).max().getAsDouble(), Arrays.stream(projections).min().getAsDouble()) > r;
+    /**
+     * The lane a voxelization is queued in and the time it must complete by.
+     */
+    private record Job(Priority priority, long deadline) {
     }
 
     /**
-     * A record representing a ray in 3D space, with an origin and direction.
-     *
-     * @param origin    the origin of the ray.
-     * @param direction the direction of the ray.
+     * The crossings of the line along a row of the grid with the mesh, reusable between rows. Each crossing is the
+     * exact rational x coordinate <code>numerator / denominator</code> on the lattice.
      */
-    public record Ray(Vec3 origin, Vec3 direction) {
+    private static class RowCrossings {
+        private final long[] crossing = new long[2];
+        private long[] numerators = new long[16];
+        private long[] denominators = new long[16];
+        private int[] primitives = new int[16];
+        private long y, z;
+        private int count;
+
+        private void add(int primitive, long numerator, long denominator) {
+            if (this.count == this.primitives.length) {
+                this.numerators = Arrays.copyOf(this.numerators, this.count * 2);
+                this.denominators = Arrays.copyOf(this.denominators, this.count * 2);
+                this.primitives = Arrays.copyOf(this.primitives, this.count * 2);
+            }
+            this.numerators[this.count] = numerator;
+            this.denominators[this.count] = denominator;
+            this.primitives[this.count++] = primitive;
+        }
+
         /**
-         * Attempts to intersect this ray with the given triangle.
-         *
-         * @param tri the triangle to intersect with.
-         * @return a hit containing the point of intersection and the triangle, or an invalid hit if there is no intersection.
+         * Sorts the crossings along the line, rows only cross a handful of triangles so this is an insertion sort.
          */
-        public Hit intersect(UnpackedTri tri) {
-            return new Hit(this, tri.intersect(this), tri);
+        private void sort() {
+            for (int i = 1; i < this.count; i++) {
+                long numerator = this.numerators[i], denominator = this.denominators[i];
+                int primitive = this.primitives[i];
+                int j = i - 1;
+                while (j >= 0 && LatticePredicates.compareFractions(this.numerators[j], this.denominators[j], numerator, denominator) > 0) {
+                    this.numerators[j + 1] = this.numerators[j];
+                    this.denominators[j + 1] = this.denominators[j];
+                    this.primitives[j + 1] = this.primitives[j];
+                    j--;
+                }
+                this.numerators[j + 1] = numerator;
+                this.denominators[j + 1] = denominator;
+                this.primitives[j + 1] = primitive;
+            }
         }
 
         /**
-         * Attempts to intersect this ray with the given mesh, returns a stream of valid hits.
-         *
-         * @param mesh the mesh to intersect with.
-         * @return a stream of valid hits.
+         * Compares two crossings along the line.
          */
-        public Stream<Hit> intersect(Mesh mesh) {
-            return intersectUnfiltered(mesh).filter(Hit::isValidHit);
+        private int compare(int i, int j) {
+            return LatticePredicates.compareFractions(this.numerators[i], this.denominators[i], this.numerators[j], this.denominators[j]);
         }
 
         /**
-         * Attempts to intersect this ray with the given mesh, returns a stream of hits including invalid hits.
-         *
-         * @param mesh the mesh to intersect with.
-         * @return a stream of hits or failed hits.
+         * Compares a crossing to the given x coordinate on the lattice.
          */
-        public Stream<Hit> intersectUnfiltered(Mesh mesh) {
-            return mesh.search(new AABB(origin, origin.add(direction)))
-                    .stream()
-                    .map(this::intersect);
+        private int compareTo(int i, long x) {
+            return Long.compare(this.numerators[i], x * this.denominators[i]);
         }
+    }
 
+    /**
+     * The algorithms available to voxelize a model with.
+     */
+    public enum Strategy {
         /**
-         * A record representing a hit between a ray and a triangle.
-         *
-         * @param ray   the ray that was used to calculate any hit.
-         * @param point the point of intersection, if any.
-         * @param tri   the triangle that was hit, if any.
+         * Tests every cell of the grid independently on the shared pool, kept as a reference implementation.
          */
-        public record Hit(Ray ray, Vec3 point, UnpackedTri tri) {
-            /**
-             * Determines if the hit is valid, i.e. if the hit point is not null.
-             *
-             * @return true if the hit is valid, false otherwise.
-             */
-            public boolean isValidHit() {
-                return point != null;
-            }
+        PER_VOXEL,
+        /**
+         * Only tests cells near each triangle for intersection and fills the interior with one ray per row.
+         */
+        SCANLINE,
+        /**
+         * Like {@link #SCANLINE}, but if the mesh mirrors onto itself across the middle of the grid on the Y or Z axis
+         * only the lower half is voxelized and mirrored into the rest. A sample of the mirrored cells is verified, and
+         * the model is voxelized in full if any differ.
+         */
+        SYMMETRIC,
+        /**
+         * Recursively splits the grid into cubes, only descending into cubes that touch the surface. Cubes clear of the
+         * surface skip the intersection test entirely and fill each of their rows from a single ray, which makes mostly
+         * solid or mostly empty models cheap.
+         */
+        OCTREE,
+        /**
+         * If the mesh is a prism along one axis, voxelizes its profile once and extrudes it along the axis. Profiles at
+         * both ends are checked against it, and the model falls back to {@link #SYMMETRIC} if the model is not a prism
+         * or the profiles differ.
+         */
+        EXTRUSION
+    }
 
-            /**
-             * Gets the distance between the hit point and the given point.
-             *
-             * @param point the point to calculate the distance to.
-             * @return the distance between the hit point and the given point.
-             */
-            public double distanceTo(Vec3 point) {
-                return point.distanceTo(this.point);
-            }
+    /**
+     * The tests available to determine if the center of a voxel that no triangle passes through is inside the model.
+     */
+    public enum InsideTest {
+        /**
+         * Casts a ray along the X axis and checks if the nearest crossing faces away from the point, fast but fragile
+         * on meshes that are not closed.
+         */
+        RAYCAST,
+        /**
+         * Inside if the fast winding number of the mesh around the point is at least a half, robust against holes and
+         * overlapping parts.
+         */
+        WINDING_NUMBER
+    }
 
-            public Hit rounded() {
-                // Round the hit point to the nearest 256th of a block.
-                return new Hit(ray, new Vec3(Math.round(point.x * 256) / 256D, Math.round(point.y * 256) / 256D, Math.round(point.z * 256) / 256D), tri);
-            }
+    /**
+     * A record representing a ray in 3D space, with an origin and direction.
+     *
+     * @param origin    the origin of the ray.
+     * @param direction the direction of the ray.
+     */
+    public record Ray(Vec3 origin, Vec3 direction) {
+        /**
+         * Gets the point at the given distance along this ray.
+         *
+         * @param t the distance in multiples of the direction.
+         * @return the point.
+         */
+        public Vec3 pointAt(double t) {
+            return this.origin.add(this.direction.scale(t));
         }
+
     }
 
 
-    private static class UnpackedTri {
+    static class UnpackedTri {
         private final AABB box;
         private final double[][] vertices;
-        private final Vec3 normal;
+        private final long[] lattice = new long[9];
+        private final long[] bounds = new long[6];
 
-        public UnpackedTri(OBJSON.Face face, OBJSON.Triangle triangle, double resolution) {
+        public UnpackedTri(OBJSON.Face face, int triangle) {
             this.vertices = new double[3][];
             for (int i = 0; i < this.vertices.length; i++) {
-                this.vertices[i] = face.vertices[triangle.vertices[i]].getPos().toArray();
+                this.vertices[i] = face.getPos(face.getVertexIndex(triangle, i)).toArray();
+                for (int a = 0; a < 3; a++) {
+                    this.lattice[i * 3 + a] = LatticePredicates.snap(this.vertices[i][a]);
+                }
+            }
+            for (int a = 0; a < 3; a++) {
+                this.bounds[a] = Math.min(this.lattice[a], Math.min(this.lattice[3 + a], this.lattice[6 + a]));
+                this.bounds[3 + a] = Math.max(this.lattice[a], Math.max(this.lattice[3 + a], this.lattice[6 + a]));
             }
-            this.normal = getV1().subtract(getV0()).cross(getV2().subtract(getV0())).normalize();
 
             var xEdges = MiscUtils.getEdges(Arrays.stream(this.getXs()));
             var yEdges = MiscUtils.getEdges(Arrays.stream(this.getYs()));
@@ -304,65 +1077,61 @@ public class OBJSONVoxelizer {
             );
         }
 
-        public Vec3 intersect(Ray ray) {
+        /**
+         * Intersects a ray with this triangle without allocating.
+         *
+         * @return the distance along the ray of the hit in multiples of its direction, or NaN if it misses.
+         */
+        public double intersect(double ox, double oy, double oz, double dx, double dy, double dz) {
             // https://en.wikipedia.org/wiki/M%C3%B6ller%E2%80%93Trumbore_intersection_algorithm
-            var e1 = this.getV1().subtract(this.getV0());
-            var e2 = this.getV2().subtract(this.getV0());
-            var p = ray.direction().cross(e2);
-            var det = e1.dot(p);
+            double[] v0 = this.vertices[0], v1 = this.vertices[1], v2 = this.vertices[2];
+            double e1x = v1[0] - v0[0], e1y = v1[1] - v0[1], e1z = v1[2] - v0[2];
+            double e2x = v2[0] - v0[0], e2y = v2[1] - v0[1], e2z = v2[2] - v0[2];
+            double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+            double det = e1x * px + e1y * py + e1z * pz;
             if (det > -1e-8 && det < 1e-8) {
-                return null;
+                return Double.NaN;
             }
-            var invDet = 1 / det;
-            var t = ray.origin().subtract(this.getV0()).scale(invDet);
-            var q = t.cross(e1);
-            var u = t.dot(p);
+            double invDet = 1 / det;
+            double tx = (ox - v0[0]) * invDet, ty = (oy - v0[1]) * invDet, tz = (oz - v0[2]) * invDet;
+            double qx = ty * e1z - tz * e1y, qy = tz * e1x - tx * e1z, qz = tx * e1y - ty * e1x;
+            double u = tx * px + ty * py + tz * pz;
             if (u < 0 || u > 1) {
-                return null;
+                return Double.NaN;
             }
-            var v = ray.direction().dot(q);
+            double v = dx * qx + dy * qy + dz * qz;
             if (v < 0 || u + v > 1) {
-                return null;
-            }
-            var t2 = e2.dot(q);
-            if (t2 > 1e-8) {
-                return ray.origin().add(ray.direction().scale(t2));
+                return Double.NaN;
             }
-            return null;
+            double t2 = e2x * qx + e2y * qy + e2z * qz;
+            return t2 > 1e-8 ? t2 : Double.NaN;
         }
 
-        public boolean intersects(AABB box) {
-            var aabbCenter = box.getCenter();
-            var aabbSize = new Vec3(box.getXsize(), box.getYsize(), box.getZsize()).scale(0.5D);
-
-            var v0 = this.getV0().subtract(aabbCenter);
-            var v1 = this.getV1().subtract(aabbCenter);
-            var v2 = this.getV2().subtract(aabbCenter);
-
-            var l0 = v1.subtract(v0);
-            var l1 = v2.subtract(v1);
-            var l2 = v0.subtract(v2);
-
-            var xAxis0 = xNormal.cross(l0);
-            var xAxis1 = xNormal.cross(l1);
-            var xAxis2 = xNormal.cross(l2);
-
-            var yAxis0 = yNormal.cross(l0);
-            var yAxis1 = yNormal.cross(l1);
-            var yAxis2 = yNormal.cross(l2);
-
-            var zAxis0 = zNormal.cross(l0);
-            var zAxis1 = zNormal.cross(l1);
-            var zAxis2 = zNormal.cross(l2);
-
-            var axes = new Vec3[]{xAxis0, xAxis1, xAxis2, yAxis0, yAxis1, yAxis2, zAxis0, zAxis1, zAxis2, xNormal, yNormal, zNormal, l0.cross(l1)};
-
-            return Arrays.stream(axes).noneMatch(a -> testSeparatingAxis(v0, v1, v2, a, aabbSize));
+        /**
+         * Determines if this triangle intersects the given box on the lattice, touching counts as intersecting.
+         *
+         * @param box the bounds of the box, as {minX, minY, minZ, maxX, maxY, maxZ} in lattice units.
+         */
+        public boolean intersects(long[] box) {
+            return this.bounds[0] <= box[3] && this.bounds[3] >= box[0]
+                    && this.bounds[1] <= box[4] && this.bounds[4] >= box[1]
+                    && this.bounds[2] <= box[5] && this.bounds[5] >= box[2]
+                    && LatticePredicates.intersects(this.lattice, box[0], box[1], box[2], box[3], box[4], box[5]);
         }
 
-        public boolean isFacing(Vec3 point) {
+        public boolean isFacing(long x, long y, long z) {
             // Determine if the triangle is facing towards the given point, the triangle's vertices are stored in a clockwise order
-            return this.normal.dot(point.subtract(getV0())) < 0;
+            return LatticePredicates.isFacing(this.lattice, x, y, z);
+        }
+
+        /**
+         * Determines if this triangle runs parallel to the given axis, its normal has no component along it.
+         */
+        private boolean isParallelTo(int axis) {
+            int a = (axis + 1) % 3, b = (axis + 2) % 3;
+            long e1a = this.lattice[3 + a] - this.lattice[a], e1b = this.lattice[3 + b] - this.lattice[b];
+            long e2a = this.lattice[6 + a] - this.lattice[a], e2b = this.lattice[6 + b] - this.lattice[b];
+            return e1a * e2b - e1b * e2a == 0;
         }
 
         private AABB getBox() {
@@ -380,50 +1149,105 @@ public class OBJSONVoxelizer {
         private double[] getZs() {
             return new double[]{this.vertices[0][2], this.vertices[1][2], this.vertices[2][2]};
         }
-
-        private Vec3 getV0() {
-            return new Vec3(this.vertices[0][0], this.vertices[0][1], this.vertices[0][2]);
-        }
-
-        private Vec3 getV1() {
-            return new Vec3(this.vertices[1][0], this.vertices[1][1], this.vertices[1][2]);
-        }
-
-        private Vec3 getV2() {
-            return new Vec3(this.vertices[2][0], this.vertices[2][1], this.vertices[2][2]);
-        }
-
-
     }
 
     public static class Mesh {
         private final List<UnpackedTri> tris;
-        private final AABBTree<UnpackedTri> trisTree;
-        //private final Vec3 meanNormal;
+        private final BVH bvh;
+        private FastWindingNumber windingNumber;
 
         public Mesh(List<UnpackedTri> unpackedTris) {
             this.tris = ImmutableList.copyOf(unpackedTris);
-            this.trisTree = new AABBTree<UnpackedTri>(unpackedTris, UnpackedTri::getBox);
+            double[] bounds = new double[this.tris.size() * 6];
+            for (int i = 0; i < this.tris.size(); i++) {
+                AABB box = this.tris.get(i).getBox();
+                bounds[i * 6] = box.minX;
+                bounds[i * 6 + 1] = box.minY;
+                bounds[i * 6 + 2] = box.minZ;
+                bounds[i * 6 + 3] = box.maxX;
+                bounds[i * 6 + 4] = box.maxY;
+                bounds[i * 6 + 5] = box.maxZ;
+            }
+            this.bvh = new BVH(bounds);
+        }
+
+        public BVH getBVH() {
+            return this.bvh;
+        }
+
+        /**
+         * Gets the winding number of the mesh, precomputing it on first use.
+         */
+        public synchronized FastWindingNumber getWindingNumber() {
+            if (this.windingNumber == null) {
+                double[] triangles = new double[this.tris.size() * 9];
+                for (int i = 0; i < this.tris.size(); i++) {
+                    for (int v = 0; v < 3; v++) {
+                        System.arraycopy(this.tris.get(i).vertices[v], 0, triangles, i * 9 + v * 3, 3);
+                    }
+                }
+                this.windingNumber = new FastWindingNumber(this.bvh, triangles);
+            }
+            return this.windingNumber;
+        }
 
-            //var meanNormal = new Vec3(0, 0, 0);
-            //for (var unpackedTri : this.tris) {
-            //    // Calculate the area of the triangle
-            //    var area = unpackedTri.getV0().subtract(unpackedTri.getV1()).cross(unpackedTri.getV0().subtract(unpackedTri.getV2())).length() / 2;
-            //    meanNormal = meanNormal.add(unpackedTri.getV0().subtract(unpackedTri.getV1()).cross(unpackedTri.getV0().subtract(unpackedTri.getV2())).scale(area));
-            //}
-            //this.meanNormal = meanNormal;
+        public UnpackedTri getTriangle(int index) {
+            return this.tris.get(index);
+        }
+
+        /**
+         * Finds every triangle hit by the given ray within the length of its direction.
+         *
+         * @param ray the ray to cast.
+         * @param out cleared, then given each hit triangle and its distance in multiples of the direction, nearest first.
+         * @return the number of hits.
+         */
+        public int raycastAll(Ray ray, BVH.RayHits out) {
+            Vec3 o = ray.origin(), d = ray.direction();
+            return this.bvh.raycastAll(o.x, o.y, o.z, d.x, d.y, d.z, 1D,
+                    i -> this.tris.get(i).intersect(o.x, o.y, o.z, d.x, d.y, d.z), out);
         }
 
-        public AABBTree<UnpackedTri>.Node getRoot() {
-            return trisTree.getRoot();
+        /**
+         * Finds the nearest triangle hit by the given ray within the length of its direction.
+         *
+         * @param ray the ray to cast.
+         * @param out cleared, then given the nearest hit if there is one.
+         * @return true if the ray hit the mesh, false otherwise.
+         */
+        public boolean raycastNearest(Ray ray, BVH.RayHits out) {
+            Vec3 o = ray.origin(), d = ray.direction();
+            return this.bvh.raycastNearest(o.x, o.y, o.z, d.x, d.y, d.z, 1D,
+                    i -> this.tris.get(i).intersect(o.x, o.y, o.z, d.x, d.y, d.z), out);
         }
 
         public AABB getBounds() {
-            return trisTree.getBounds();
+            return this.bvh.getBounds();
         }
 
-        public List<UnpackedTri> search(AABB box) {
-            return trisTree.search(box);
+        /**
+         * Visits every triangle whose bounds intersect the given box.
+         *
+         * @param box  the box to search.
+         * @param sink called with each triangle, return false to stop the search.
+         * @return false if the sink stopped the search, true otherwise.
+         */
+        public boolean search(AABB box, Predicate<UnpackedTri> sink) {
+            return this.bvh.search(box, i -> sink.test(this.tris.get(i)));
+        }
+
+        /**
+         * Visits every triangle whose bounds may touch the given box on the lattice. The bounds of the hierarchy are
+         * not snapped, so the box is padded by a lattice unit to find every triangle that touches it once snapped.
+         *
+         * @param box  the bounds of the box, as {minX, minY, minZ, maxX, maxY, maxZ} in lattice units.
+         * @param sink called with the index of each triangle, return false to stop the search.
+         * @return false if the sink stopped the search, true otherwise.
+         */
+        private boolean search(long[] box, IntPredicate sink) {
+            double unit = 1D / LatticePredicates.LATTICE;
+            return this.bvh.search((box[0] - 1) * unit, (box[1] - 1) * unit, (box[2] - 1) * unit,
+                    (box[3] + 1) * unit, (box[4] + 1) * unit, (box[5] + 1) * unit, sink);
         }
     }
 
@@ -0,0 +1,189 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the parallel parts of voxelization on a bounded pool of named daemon threads, so voxelization never competes for
+ * every core with the server tick and chunk builders.
+ * <p>
+ * Work queued with {@link Priority#BLOCKING} always runs before {@link Priority#BACKGROUND} work, so a thread waiting on
+ * a shape is not stuck behind a preload. A thread waiting on its tasks in {@link #awaitAll(List, long)} runs any that
+ * have not started yet itself, so a voxelizer thread queuing work of its own never deadlocks the bounded pool and the
+ * deadline is checked between tasks.
+ */
+public final class OBJSONVoxelizerExecutor {
+
+    /**
+     * The deadline passed to {@link #awaitAll(List, long)} to wait without a timeout.
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    private static ThreadPoolExecutor pool;
+    private static int threads = getDefaultThreads();
+    private static long timeoutMillis = 30_000;
+
+    private OBJSONVoxelizerExecutor() {
+    }
+
+    public enum Priority {
+        /**
+         * A thread is blocked until the voxelization completes.
+         */
+        BLOCKING,
+        /**
+         * The voxelization is ahead of time work, such as preloading models.
+         */
+        BACKGROUND
+    }
+
+    /**
+     * Sets the limits of the executor, the pool is recreated with the new thread count the next time it is used.
+     *
+     * @param threads       the maximum number of threads to voxelize on, 0 picks a count based on the available processors.
+     * @param timeoutMillis the time a single model may take to voxelize before it falls back to its bounds, 0 to disable.
+     */
+    public static synchronized void configure(int threads, long timeoutMillis) {
+        OBJSONVoxelizerExecutor.threads = threads <= 0 ? getDefaultThreads() : threads;
+        OBJSONVoxelizerExecutor.timeoutMillis = timeoutMillis;
+        shutdown();
+    }
+
+    /**
+     * Gets the deadline for a voxelization starting now, in terms of {@link System#nanoTime()}.
+     *
+     * @return the deadline, or {@link #NO_DEADLINE} if timeouts are disabled.
+     */
+    public static synchronized long getDeadline() {
+        if (timeoutMillis <= 0)
+            return NO_DEADLINE;
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Queues a task on the pool.
+     *
+     * @param priority the lane to queue the task in.
+     * @param task     the task to run.
+     * @return a future completed with the result of the task.
+     */
+    public static <T> Future<T> submit(Priority priority, Callable<T> task) {
+        var queued = new PrioritizedTask<>(task, priority, SEQUENCE.getAndIncrement());
+        try {
+            getPool().execute(queued);
+        } catch (RejectedExecutionException e) {
+            // The pool shut down between being fetched and the task being queued.
+            queued.cancel(false);
+        }
+        return queued;
+    }
+
+    /**
+     * Waits for every future to complete, cancelling all of them if any fail or the deadline passes. Tasks no thread
+     * has started yet are run by the waiting thread rather than waited on.
+     *
+     * @param futures  the futures to wait on.
+     * @param deadline the time to stop waiting at in terms of {@link System#nanoTime()}, or {@link #NO_DEADLINE}.
+     * @return the results of the futures, in order.
+     * @throws DeadlineExceededException if the deadline passed.
+     * @throws CancellationException      if the waiting thread was interrupted or the pool shut down.
+     * @throws ExecutionException    if any of the tasks failed.
+     */
+    public static <T> List<T> awaitAll(List<? extends Future<T>> futures, long deadline) throws ExecutionException {
+        var out = new ArrayList<T>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                if (future.isDone() || !(future instanceof RunnableFuture<T> task))
+                    continue;
+                if (deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0)
+                    throw new TimeoutException();
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                // Does nothing if a voxelizer thread took the task off the queue first, it is waited on below.
+                task.run();
+            }
+            for (Future<T> future : futures) {
+                if (deadline == NO_DEADLINE) {
+                    out.add(future.get());
+                } else {
+                    out.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                }
+            }
+            return out;
+        } catch (TimeoutException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new DeadlineExceededException("Timed out waiting for voxelization");
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for voxelization");
+        } catch (ExecutionException | CancellationException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Stops every thread of the pool and cancels any queued work, the pool is recreated if it is used again.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow().forEach(r -> ((Future<?>) r).cancel(false));
+            pool = null;
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getPool() {
+        if (pool == null) {
+            pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<>(), Worker::new);
+            pool.allowCoreThreadTimeOut(true);
+        }
+        return pool;
+    }
+
+    private static int getDefaultThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * Thrown when voxelization runs past its deadline, as opposed to being cancelled by an interrupt or the executor
+     * shutting down, which may succeed if tried again.
+     */
+    public static class DeadlineExceededException extends CancellationException {
+        public DeadlineExceededException(String message) {
+            super(message);
+        }
+    }
+
+    private static class Worker extends Thread {
+        private Worker(Runnable runnable) {
+            super(runnable, "ArchitectureCraft Voxelizer #" + THREAD_ID.incrementAndGet());
+            this.setDaemon(true);
+        }
+    }
+
+    private static class PrioritizedTask<T> extends FutureTask<T> implements Comparable<PrioritizedTask<?>> {
+        private final Priority priority;
+        private final long sequence;
+
+        private PrioritizedTask(Callable<T> callable, Priority priority, long sequence) {
+            super(callable);
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask<?> o) {
+            int byPriority = this.priority.compareTo(o.priority);
+            return byPriority != 0 ? byPriority : Long.compare(this.sequence, o.sequence);
+        }
+    }
+}
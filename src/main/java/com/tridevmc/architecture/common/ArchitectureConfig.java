@@ -0,0 +1,62 @@
+package com.tridevmc.architecture.common;
+
+import net.minecraftforge.common.ForgeConfigSpec;
+
+import java.util.List;
+
+/**
+ * Common configuration for ArchitectureCraft, stored in config/architecturecraft-common.toml.
+ */
+public class ArchitectureConfig {
+
+    public static final ForgeConfigSpec SPEC;
+
+    public static final ForgeConfigSpec.BooleanValue PRELOAD_MODELS;
+    public static final ForgeConfigSpec.IntValue PRELOAD_THREADS;
+    public static final ForgeConfigSpec.IntValue VOXELIZE_THREADS;
+    public static final ForgeConfigSpec.IntValue VOXELIZE_TIMEOUT;
+    public static final ForgeConfigSpec.BooleanValue ASYNC_VOXELIZATION;
+    public static final ForgeConfigSpec.ConfigValue<List<? extends String>> VOXEL_RESOLUTIONS;
+
+    static {
+        ForgeConfigSpec.Builder builder = new ForgeConfigSpec.Builder();
+
+        builder.push("models");
+        PRELOAD_MODELS = builder
+                .comment("Load and voxelize every model during setup rather than the first time it is used.",
+                        "Avoids hitches the first time a shape is seen at the cost of a longer startup.")
+                .define("preload", false);
+        PRELOAD_THREADS = builder
+                .comment("The number of threads used to preload models, 0 picks a count based on the available processors.")
+                .defineInRange("preloadThreads", 0, 0, 64);
+        VOXELIZE_THREADS = builder
+                .comment("The maximum number of threads used to voxelize a model, 0 picks a count based on the available processors.")
+                .defineInRange("voxelizeThreads", 0, 0, 64);
+        VOXELIZE_TIMEOUT = builder
+                .comment("The number of seconds a model may take to voxelize before its collision falls back to its bounding box, 0 to wait forever.")
+                .defineInRange("voxelizeTimeout", 30, 0, 3600);
+        ASYNC_VOXELIZATION = builder
+                .comment("Voxelize models in the background the first time they are needed rather than stalling the game.",
+                        "Blocks use the bounding box of their model for collision until it has been voxelized.")
+                .define("asyncVoxelization", false);
+        VOXEL_RESOLUTIONS = builder
+                .comment("Resolutions to voxelize specific models at in place of the automatic choice, as 'model=resolution' or",
+                        "'model=collision,picking', for example 'architecturecraft:shape/slab.objson=4'. Resolutions may be 4, 8, 16 or 32.")
+                .defineList("voxelResolutions", List.of(), o -> o instanceof String);
+        builder.pop();
+
+        SPEC = builder.build();
+    }
+
+    /**
+     * Gets the number of threads to preload models with, resolving the automatic setting.
+     *
+     * @return the number of preload threads, at least one.
+     */
+    public static int getPreloadThreads() {
+        int threads = PRELOAD_THREADS.get();
+        if (threads <= 0)
+            threads = Math.min(4, Runtime.getRuntime().availableProcessors() - 1);
+        return Math.max(1, threads);
+    }
+}
@@ -31,6 +31,7 @@ import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.DistExecutor;
 import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 
@@ -48,6 +49,7 @@ public class ArchitectureMod {
     public ArchitectureMod() {
         ArchitectureMod.INSTANCE = this;
         PROXY = DistExecutor.runForDist(() -> ClientProxy::new, () -> CommonProxy::new);
+        ModLoadingContext.get().registerConfig(ModConfig.Type.COMMON, ArchitectureConfig.SPEC);
 
         FMLJavaModLoadingContext loadingContext = FMLJavaModLoadingContext.get();
         loadingContext.getModEventBus().addListener(this::onSetup);
@@ -55,6 +57,8 @@ public class ArchitectureMod {
         loadingContext.getModEventBus().register(PROXY);
         MinecraftForge.EVENT_BUS.register(CONTENT);
         MinecraftForge.EVENT_BUS.register(PROXY);
+        MinecraftForge.EVENT_BUS.addListener(PROXY::onServerStarted);
+        MinecraftForge.EVENT_BUS.addListener(PROXY::onServerStopped);
     }
 
     public void onSetup(FMLCommonSetupEvent e) {
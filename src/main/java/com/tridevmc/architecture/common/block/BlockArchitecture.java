@@ -25,6 +25,7 @@
 package com.tridevmc.architecture.common.block;
 
 import com.tridevmc.architecture.client.render.model.objson.OBJSON;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution.Use;
 import com.tridevmc.architecture.common.ArchitectureLog;
 import com.tridevmc.architecture.common.ArchitectureMod;
 import com.tridevmc.architecture.common.block.state.BlockStateArchitecture;
@@ -32,9 +33,9 @@ import com.tridevmc.architecture.common.helpers.Trans3;
 import com.tridevmc.architecture.common.helpers.Vector3;
 import com.tridevmc.architecture.common.render.ITextureConsumer;
 import com.tridevmc.architecture.common.render.ModelSpec;
+import com.tridevmc.architecture.common.utils.ConcurrentLongKeyedCache;
 import com.tridevmc.architecture.common.utils.MiscUtils;
 import com.tridevmc.compound.core.reflect.WrappedField;
-import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.client.particle.ParticleEngine;
 import net.minecraft.client.particle.TerrainParticle;
@@ -83,8 +84,15 @@ public abstract class BlockArchitecture extends BaseEntityBlock implements IText
 
     private static final WrappedField<StateDefinition<Block, BlockState>> STATE_CONTAINER = WrappedField.create(Block.class, "stateDefinition", "f_49792_");
 
-    private final Int2ObjectLinkedOpenHashMap<Trans3> transCache = new Int2ObjectLinkedOpenHashMap<>();
-    private final Int2ObjectLinkedOpenHashMap<VoxelShape> shapeCache = new Int2ObjectLinkedOpenHashMap<>();
+    /**
+     * Returned by {@link #getOrientationKey} for blocks whose transformation and shape cannot be cached.
+     */
+    public static final long UNCACHED = -1;
+
+    // Shared by every block, the orientation key of a block includes its state so they never share an entry.
+    private static final ConcurrentLongKeyedCache<Trans3> TRANS_CACHE = new ConcurrentLongKeyedCache<>("Transformation cache", 4096);
+    private static final ConcurrentLongKeyedCache<VoxelShape> SHAPE_CACHE = new ConcurrentLongKeyedCache<>("Block shape cache", 4096);
+    private static final ConcurrentLongKeyedCache<VoxelShape> COLLISION_SHAPE_CACHE = new ConcurrentLongKeyedCache<>("Block collision shape cache", 4096);
 
     private static final RandomSource RANDOM = RandomSource.create();
     public static boolean debugState = false;
@@ -242,11 +250,13 @@ public abstract class BlockArchitecture extends BaseEntityBlock implements IText
     }
 
     public Trans3 localToGlobalTransformation(BlockGetter level, BlockPos pos, BlockState state, Vector3 origin) {
-        var transIdentity = this.getTransIdentity(state, level, pos, origin);
-        var trans = this.transCache.get(transIdentity);
+        long key = this.getOrientationKey(state, level, pos, origin);
+        if (key == UNCACHED)
+            return this.getOrientationHandler().localToGlobalTransformation(level, pos, state, origin);
+        var trans = TRANS_CACHE.get(key);
         if (trans == null) {
             trans = this.getOrientationHandler().localToGlobalTransformation(level, pos, state, origin);
-            this.transCache.put(transIdentity, trans);
+            TRANS_CACHE.put(key, trans);
         }
         return trans;
     }
@@ -348,26 +358,71 @@ public abstract class BlockArchitecture extends BaseEntityBlock implements IText
     @NotNull
     @Override
     public VoxelShape getShape(BlockState state, BlockGetter level, BlockPos pos, CollisionContext context) {
-        var shapeIdentity = getTransIdentity(state, level, pos, Vector3.zero);
-        var shape = this.shapeCache.get(shapeIdentity);
+        return this.getCachedShape(SHAPE_CACHE, Use.PICKING, state, level, pos);
+    }
+
+    @NotNull
+    @Override
+    public VoxelShape getCollisionShape(BlockState state, BlockGetter level, BlockPos pos, CollisionContext context) {
+        return this.hasCollision ? this.getCachedShape(COLLISION_SHAPE_CACHE, Use.COLLISION, state, level, pos) : Shapes.empty();
+    }
+
+    private VoxelShape getCachedShape(ConcurrentLongKeyedCache<VoxelShape> cache, Use use, BlockState state, BlockGetter level, BlockPos pos) {
+        var tabled = this.getTabledShape(use, state, level, pos);
+        if (tabled != null)
+            return tabled;
+        long key = this.isShapeCacheable(level, pos, state) ? this.getOrientationKey(state, level, pos, Vector3.zero) : UNCACHED;
+        var shape = key == UNCACHED ? null : cache.get(key);
         if (shape == null) {
-            shape = getLocalBounds(level, pos, state, null);
+            boolean provisional = this.isShapeProvisional(level, pos, state, use);
+            shape = getLocalBounds(level, pos, state, null, use);
             if (shape.isEmpty()) {
                 return Shapes.block();
-            } else {
-                shapeCache.put(shapeIdentity, shape);
+            } else if (!provisional && key != UNCACHED) {
+                cache.put(key, shape);
             }
         }
         return shape;
     }
 
+    /**
+     * Gets the shape of the given block from a table of shapes precomputed for each orientation, if the block has one.
+     *
+     * @return the shape, or null if it should be looked up in the shape caches of this block.
+     */
+    protected VoxelShape getTabledShape(Use use, BlockState state, BlockGetter level, BlockPos pos) {
+        return null;
+    }
+
+    /**
+     * Determines if the shape of the given block is a placeholder that will change once it is ready, such as the bounds
+     * of a model that is still being voxelized. Provisional shapes are never cached.
+     */
+    protected boolean isShapeProvisional(BlockGetter level, BlockPos pos, BlockState state, Use use) {
+        ModelSpec spec = this.getModelSpec(state);
+        return spec != null && !ArchitectureMod.PROXY.getCachedOBJSON(spec.modelName).isVoxelized(use);
+    }
+
+    /**
+     * Determines if the shape of the given block depends on nothing but its orientation key, see
+     * {@link #getOrientationKey}, so it can be shared through the shape caches. Shapes that depend on the neighbours of
+     * the block or on anything else are never cached.
+     */
+    protected boolean isShapeCacheable(BlockGetter level, BlockPos pos, BlockState state) {
+        return true;
+    }
+
+    /**
+     * Gets the shape of the given block for the given use, the collision shape may be coarser than the shape used for
+     * picking, see {@link com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution}.
+     */
     @NotNull
-    protected VoxelShape getLocalBounds(BlockGetter level, BlockPos pos, BlockState state, Entity entity) {
+    protected VoxelShape getLocalBounds(BlockGetter level, BlockPos pos, BlockState state, Entity entity, Use use) {
         ModelSpec spec = this.getModelSpec(state);
         if (spec != null) {
             OBJSON model = ArchitectureMod.PROXY.getCachedOBJSON(spec.modelName);
             Trans3 t = this.localToGlobalTransformation(level, pos, state);
-            var voxelized = model.getVoxelized();
+            var voxelized = ArchitectureMod.PROXY.getVoxelized(model, use);
             return t.t(voxelized);
         }
         return Shapes.empty();
@@ -395,8 +450,43 @@ public abstract class BlockArchitecture extends BaseEntityBlock implements IText
         return holderSet.contains(this.builtInRegistryHolder());
     }
 
-    public int getTransIdentity(BlockState state, BlockGetter level, BlockPos pos, Vector3 origin) {
-        return state.hashCode() * 31 + origin.hashCode();
+    /**
+     * Packs everything the transformation and shape of a block depend on into an exact key for the caches shared by
+     * every block, keys of different orientations never collide.
+     * <p>
+     * Bits 0-23 hold the id of the state and 43-60 the origin in sixteenths of a block, bits 24-42 and 61 are left for
+     * blocks oriented by their block entity, see {@link BlockShape#getOrientationKey}.
+     *
+     * @return the key, or {@link #UNCACHED} if the state id or origin do not fit in it.
+     */
+    public long getOrientationKey(BlockState state, BlockGetter level, BlockPos pos, Vector3 origin) {
+        int id = Block.getId(state);
+        long packedOrigin = packOrigin(origin);
+        if (id < 0 || id >= 1 << 24 || packedOrigin == UNCACHED)
+            return UNCACHED;
+        return id | packedOrigin << 43;
+    }
+
+    /**
+     * Packs an origin on the grid of sixteenths of a block within two blocks of the block into 18 bits.
+     */
+    private static long packOrigin(Vector3 origin) {
+        long packed = 0;
+        double[] components = {origin.x, origin.y, origin.z};
+        for (int i = 0; i < 3; i++) {
+            double sixteenths = components[i] * 16;
+            long rounded = Math.round(sixteenths);
+            if (rounded != sixteenths || rounded < -32 || rounded >= 32)
+                return UNCACHED;
+            packed |= (rounded & 0x3F) << i * 6;
+        }
+        return packed;
+    }
+
+    public static void logCacheStatistics() {
+        TRANS_CACHE.logStatistics();
+        SHAPE_CACHE.logStatistics();
+        COLLISION_SHAPE_CACHE.logStatistics();
     }
 
     @Nullable
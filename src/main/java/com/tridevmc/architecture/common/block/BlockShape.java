@@ -26,6 +26,7 @@ package com.tridevmc.architecture.common.block;
 
 import com.google.common.collect.Maps;
 import com.tridevmc.architecture.client.debug.ArchitectureDebugEventListeners;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution.Use;
 import com.tridevmc.architecture.common.ArchitectureLog;
 import com.tridevmc.architecture.common.block.entity.ShapeBlockEntity;
 import com.tridevmc.architecture.common.helpers.Trans3;
@@ -121,15 +122,40 @@ public class BlockShape extends BlockArchitecture {
     @Override
     @Nonnull
     protected VoxelShape getLocalBounds(BlockGetter level, BlockPos pos,
-                                        BlockState state, Entity entity) {
+                                        BlockState state, Entity entity, Use use) {
         ShapeBlockEntity te = this.getTileEntity(level, pos);
         if (te != null) {
             Trans3 t = te.localToGlobalTransformation(Vector3.zero);
-            return this.getArchitectureShape().behaviour.getBounds(te, level, pos, state, entity, t);
+            var behaviour = this.getArchitectureShape().behaviour;
+            if (use == Use.COLLISION)
+                return behaviour.getCollisionBoxCached(te, level, pos, state, entity, t);
+            return behaviour.getBounds(te, level, pos, state, entity, t);
         }
         return Shapes.empty();
     }
 
+    @Override
+    protected VoxelShape getTabledShape(Use use, BlockState state, BlockGetter level, BlockPos pos) {
+        ShapeBlockEntity te = this.getTileEntity(level, pos);
+        if (te != null)
+            return this.getArchitectureShape().getOrientedShape(use, te, level, pos, state);
+        return null;
+    }
+
+    @Override
+    protected boolean isShapeProvisional(BlockGetter level, BlockPos pos, BlockState state, Use use) {
+        return this.getArchitectureShape().behaviour.isShapeProvisional(use);
+    }
+
+    /**
+     * Shapes are cached by {@link EnumShape#getOrientedShape}, or by their behaviour for orientations it doesn't table,
+     * so they are kept out of the block shape caches rather than held twice.
+     */
+    @Override
+    protected boolean isShapeCacheable(BlockGetter level, BlockPos pos, BlockState state) {
+        return false;
+    }
+
     @Override
     public ItemStack getCloneItemStack(BlockState state, HitResult target, BlockGetter level, BlockPos pos, Player player) {
         ShapeBlockEntity te = ShapeBlockEntity.get(level, pos);
@@ -202,15 +228,21 @@ public class BlockShape extends BlockArchitecture {
         return true;
     }
 
+    /**
+     * Adds the orientation held by the block entity to the key, bits 24-26 hold the side, 27-28 the turn, 29-36 the
+     * offset in sixteenths and 61 whether there is a block entity at all. The key only caches transformations, which
+     * don't depend on the disabled connections of the block.
+     */
     @Override
-    public int getTransIdentity(BlockState state, BlockGetter level, BlockPos pos, Vector3 origin) {
+    public long getOrientationKey(BlockState state, BlockGetter level, BlockPos pos, Vector3 origin) {
+        long key = super.getOrientationKey(state, level, pos, origin);
         var shapeBE = ShapeBlockEntity.get(level, pos);
-        var identity = super.getTransIdentity(state, level, pos, origin);
-        if (shapeBE != null) {
-            identity = 31 * identity + (int) shapeBE.getOffsetX();
-            identity = 31 * identity + shapeBE.getSide();
-            identity = 31 * identity + shapeBE.getTurn();
-        }
-        return identity;
+        if (key == UNCACHED || shapeBE == null)
+            return key;
+        return key
+                | (long) (shapeBE.getSide() & 0x7) << 24
+                | (long) (shapeBE.getTurn() & 0x3) << 27
+                | (Math.round(shapeBE.getOffsetX() * 16) & 0xFF) << 29
+                | 1L << 61;
     }
 }
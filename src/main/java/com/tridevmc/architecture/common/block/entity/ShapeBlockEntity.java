@@ -281,6 +281,9 @@ public class ShapeBlockEntity extends BlockEntity {
     public Trans3 localToGlobalTransformation(Vector3 origin) {
         BlockState state = this.level.getBlockState(this.worldPosition);
         Block block = state.getBlock();
+        // Shape blocks are oriented by side and turn alone, so their transformation is the shared canonical one.
+        if (block instanceof BlockShape && origin.x == 0 && origin.y == 0 && origin.z == 0)
+            return Trans3.oriented(this.getSide(), this.getTurn(), this.offsetX);
         if (block instanceof BlockArchitecture)
             return ((BlockArchitecture) block).localToGlobalTransformation(this.getLevel(), this.getBlockPos(), state, origin).translate(this.getOffsetX(), 0, 0);
         else {
@@ -28,6 +28,8 @@ import com.google.common.base.MoreObjects;
 import com.mojang.math.Matrix4f;
 import com.mojang.math.Transformation;
 import com.mojang.math.Vector3d;
+import com.tridevmc.architecture.common.utils.CubeRotation;
+import com.tridevmc.architecture.common.utils.VoxelShapeUtils;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.core.Vec3i;
@@ -55,10 +57,32 @@ public class Trans3 {
                 sideTurnRotations[side][turn] = new Trans3(Vector3.zero, Matrix3.sideTurnRotations[side][turn]);
     }
 
+    // Offsets of canonical transformations along their local X axis, in sixteenths of a block, run from -16 to 16.
+    private static final int MAX_CANONICAL_OFFSET = 16;
+    private static final Trans3[] CANONICAL = new Trans3[24 * (MAX_CANONICAL_OFFSET * 2 + 1)];
+
+    static {
+        for (int offset = -MAX_CANONICAL_OFFSET; offset <= MAX_CANONICAL_OFFSET; offset++) {
+            for (int side = 0; side < 6; side++) {
+                for (int turn = 0; turn < 4; turn++) {
+                    int index = getCanonicalIndex(side, turn, offset);
+                    Trans3 t = buildSideTurn(Vector3.zero, side, turn).translate(offset / 16.0, 0, 0);
+                    CANONICAL[index] = new Trans3(t.offset, t.rotation, index, CubeRotation.of(side, turn));
+                }
+            }
+        }
+    }
+
     public final Vector3 offset;
     public final Matrix3 rotation;
     public final double scaling;
-    private Transformation mcTrans;
+    // Canonical transformations are shared between threads, so the lazily built transformation has to be published safely.
+    private volatile Transformation mcTrans;
+    private CubeRotation cubeRotation;
+    private boolean cubeRotationResolved;
+    // The index of this transformation in the canonical table, or -1 if it was built some other way.
+    private final int canonicalIndex;
+    private int hash;
 
     public Trans3(Vector3 v) {
         this(v, Matrix3.ident);
@@ -72,6 +96,21 @@ public class Trans3 {
         this.offset = v;
         this.rotation = m;
         this.scaling = s;
+        this.canonicalIndex = -1;
+    }
+
+    /**
+     * Creates a canonical transformation, with its rotation of the cube and hash worked out up front. The transformation
+     * for rendering is still only built on first use, see {@link #toMCTrans()}.
+     */
+    private Trans3(Vector3 v, Matrix3 m, int canonicalIndex, CubeRotation cubeRotation) {
+        this.offset = v;
+        this.rotation = m;
+        this.scaling = 1.0;
+        this.canonicalIndex = canonicalIndex;
+        this.cubeRotation = cubeRotation;
+        this.cubeRotationResolved = true;
+        this.hash = Objects.hash(this.offset, this.rotation, this.scaling);
     }
 
     public Trans3(double dx, double dy, double dz) {
@@ -94,11 +133,44 @@ public class Trans3 {
         return sideTurn(new Vector3(x, y, z), side, turn);
     }
 
+    /**
+     * Gets the transformation of a block placed against the given side with the given turn, moved to the center of the
+     * block. It has an origin, so it isn't canonical and is built anew on every call.
+     */
     public static Trans3 blockCenterSideTurn(int side, int turn) {
         return sideTurn(Vector3.blockCenter, side, turn);
     }
 
+    /**
+     * Gets the transformation of a block placed against the given side with the given turn, rotating about the center
+     * of the block and then moving it to the given origin. Transformations with no origin are canonical, every call
+     * returns the same instance. Any other origin, such as the one of {@link #blockCenterSideTurn}, builds a new
+     * transformation on every call.
+     */
     public static Trans3 sideTurn(Vector3 v, int side, int turn) {
+        if (v.x == 0 && v.y == 0 && v.z == 0)
+            return CANONICAL[getCanonicalIndex(side, turn, 0)];
+        return buildSideTurn(v, side, turn);
+    }
+
+    /**
+     * Gets the canonical transformation of a block placed against the given side with the given turn, then moved along
+     * its local X axis.
+     *
+     * @param offsetX the offset along the local X axis of the block, in sixteenths of a block.
+     * @return the transformation, built anew if the offset is too large to have a canonical one.
+     */
+    public static Trans3 oriented(int side, int turn, int offsetX) {
+        if (Math.abs(offsetX) > MAX_CANONICAL_OFFSET)
+            return buildSideTurn(Vector3.zero, side, turn).translate(offsetX / 16.0, 0, 0);
+        return CANONICAL[getCanonicalIndex(side, turn, offsetX)];
+    }
+
+    private static int getCanonicalIndex(int side, int turn, int offsetX) {
+        return (offsetX + MAX_CANONICAL_OFFSET) * 24 + side * 4 + turn;
+    }
+
+    private static Trans3 buildSideTurn(Vector3 v, int side, int turn) {
         var t = new Trans3(v);
         return t.translate(Vector3.blockCenter)
                 .rotate(Matrix3.sideTurnRotations[side][turn])
@@ -129,6 +201,14 @@ public class Trans3 {
     }
 
     public Trans3 translate(double dx, double dy, double dz) {
+        if (dx == 0 && dy == 0 && dz == 0)
+            return this;
+        if (this.canonicalIndex != -1 && dy == 0 && dz == 0) {
+            // Moving a canonical transformation along its local X axis by sixteenths lands on another one.
+            double offset = this.canonicalIndex / 24 - MAX_CANONICAL_OFFSET + dx * 16;
+            if (offset == Math.rint(offset) && Math.abs(offset) <= MAX_CANONICAL_OFFSET)
+                return CANONICAL[this.canonicalIndex % 24 + ((int) offset + MAX_CANONICAL_OFFSET) * 24];
+        }
         return new Trans3(
                 this.offset.add(this.rotation.mul(dx * this.scaling, dy * this.scaling, dz * this.scaling)),
                 this.rotation,
@@ -238,8 +318,9 @@ public class Trans3 {
     }
 
     public Transformation toMCTrans() {
-        if (this.mcTrans == null) {
-            this.mcTrans = new Transformation(new Matrix4f(new float[]{
+        Transformation mcTrans = this.mcTrans;
+        if (mcTrans == null) {
+            mcTrans = new Transformation(new Matrix4f(new float[]{
                     (float) this.rotation.m[0][0],
                     (float) this.rotation.m[0][1],
                     (float) this.rotation.m[0][2],
@@ -256,9 +337,10 @@ public class Trans3 {
                     0.0f,
                     0.0f,
                     1.0f}));
+            this.mcTrans = mcTrans;
         }
 
-        return this.mcTrans;
+        return mcTrans;
     }
 
     public List<AABB> t(List<AABB> boxes) {
@@ -269,14 +351,23 @@ public class Trans3 {
         if (this.scaling == 1 && this.rotation.isIdent()) {
             return shape.move(this.offset.x, this.offset.y, this.offset.z);
         }
-        List<AABB> boxes = shape.toAabbs().stream().map(this::t).collect(Collectors.toList());
-        VoxelShape out = boxes.isEmpty() ? Shapes.empty() : Shapes.create(boxes.get(0));
-        if (boxes.size() > 1) {
-            for (int i = 1; i < boxes.size(); i++) {
-                out = Shapes.or(out, Shapes.create(boxes.get(i)));
-            }
+        if (this.scaling == 1 && this.getCubeRotation() != null) {
+            return this.getCubeRotation().transform(shape, this.offset.x, this.offset.y, this.offset.z);
+        }
+        return VoxelShapeUtils.fromBoxes(this.t(shape.toAabbs()));
+    }
+
+    /**
+     * Gets the rotation of the cube this transformation performs, if it performs one.
+     *
+     * @return the rotation, or null if the rotation of this transformation does not map every axis onto another.
+     */
+    public CubeRotation getCubeRotation() {
+        if (!this.cubeRotationResolved) {
+            this.cubeRotation = CubeRotation.of(this.rotation);
+            this.cubeRotationResolved = true;
         }
-        return out.optimize();
+        return this.cubeRotation;
     }
 
     public double[] t(double[] box) {
@@ -330,6 +421,8 @@ public class Trans3 {
 
     @Override
     public int hashCode() {
+        if (this.canonicalIndex != -1)
+            return this.hash;
         return Objects.hash(this.offset, this.rotation, this.scaling);
     }
 
@@ -25,21 +25,79 @@
 package com.tridevmc.architecture.common.proxy;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.tridevmc.architecture.client.render.model.objson.OBJSON;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelCache;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution.Use;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelizerExecutor;
+import com.tridevmc.architecture.common.ArchitectureConfig;
+import com.tridevmc.architecture.common.ArchitectureContent;
 import com.tridevmc.architecture.common.ArchitectureLog;
 import com.tridevmc.architecture.common.ArchitectureMod;
+import com.tridevmc.architecture.common.block.BlockArchitecture;
+import com.tridevmc.architecture.common.render.ModelSpec;
+import com.tridevmc.architecture.common.shape.EnumShape;
+import com.tridevmc.architecture.common.shape.behaviour.ShapeBehaviour;
+import com.tridevmc.architecture.common.shape.behaviour.ShapeBehaviourModel;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.shapes.VoxelShape;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.server.ServerStartedEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.minecraftforge.fml.loading.FMLPaths;
+import net.minecraftforge.fml.loading.progress.ProgressMeter;
 import net.minecraftforge.fml.loading.progress.StartupMessageManager;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class CommonProxy {
 
-    private final Map<ResourceLocation, OBJSON> modelCache = Maps.newHashMap();
+    private final Map<ResourceLocation, OBJSON> modelCache = Maps.newConcurrentMap();
+    private OBJSONVoxelCache voxelCache;
+    private boolean asyncVoxelization;
 
     public void setup(FMLCommonSetupEvent e) {
+        OBJSONVoxelizerExecutor.configure(ArchitectureConfig.VOXELIZE_THREADS.get(),
+                TimeUnit.SECONDS.toMillis(ArchitectureConfig.VOXELIZE_TIMEOUT.get()));
+        this.asyncVoxelization = ArchitectureConfig.ASYNC_VOXELIZATION.get();
+        Map<String, int[]> resolutions = Maps.newHashMap();
+        for (String override : ArchitectureConfig.VOXEL_RESOLUTIONS.get()) {
+            if (!OBJSONVoxelResolution.parseOverride(override, resolutions))
+                ArchitectureLog.warn("Ignoring invalid voxel resolution override '{}'", override);
+        }
+        OBJSONVoxelResolution.configure(resolutions);
+        if (ArchitectureConfig.PRELOAD_MODELS.get())
+            this.preloadModels();
+    }
+
+    /**
+     * Logs how many models were voxelized from the voxel cache, models are loaded lazily unless preloaded so this is
+     * the first point the figure covers the models a world needs.
+     */
+    public void onServerStarted(ServerStartedEvent e) {
+        this.getVoxelCache().logStatistics();
+    }
+
+    /**
+     * Stops the voxelizer threads along with the server, they are started again if another world is loaded, and logs
+     * how well shapes were cached.
+     */
+    public void onServerStopped(ServerStoppedEvent e) {
+        OBJSONVoxelizerExecutor.shutdown();
+        ShapeBehaviour.logCacheStatistics();
+        BlockArchitecture.logCacheStatistics();
     }
 
     public void registerHandlers() {
@@ -50,21 +108,108 @@ public class CommonProxy {
     }
 
     public OBJSON getCachedOBJSON(String name) {
-        ResourceLocation loc = this.modelLocation(name);
-        OBJSON model = this.modelCache.get(loc);
-        if (model == null) {
-            long t0 = System.nanoTime();
-            model = OBJSON.fromResource(loc);
-            this.modelCache.put(loc, model);
-            long t1 = System.nanoTime();
-            String msg = String.format("Loaded and cached '%s' in %s nanos.", name, t1 - t0);
-            StartupMessageManager.addModMessage(msg);
-            ArchitectureLog.info(msg);
+        OBJSON model = this.modelCache.computeIfAbsent(this.modelLocation(name), this::loadOBJSON);
+        if (!this.asyncVoxelization) {
+            for (Use use : Use.values()) {
+                model.getVoxelized(use, OBJSONVoxelizerExecutor.Priority.BLOCKING);
+            }
         }
-        model.getVoxelized();
         return model;
     }
 
+    private OBJSON getCachedOBJSON(String name, OBJSONVoxelizerExecutor.Priority priority) {
+        OBJSON model = this.modelCache.computeIfAbsent(this.modelLocation(name), this::loadOBJSON);
+        for (Use use : Use.values()) {
+            model.getVoxelized(use, priority);
+        }
+        return model;
+    }
+
+    /**
+     * Gets the voxelized shape of a model, when voxelizing asynchronously this is the bounds of the model until it has
+     * been voxelized in the background.
+     *
+     * @param model the model to get the shape of.
+     * @param use   the use of the shape.
+     * @return the shape of the model.
+     */
+    public VoxelShape getVoxelized(OBJSON model, Use use) {
+        return this.asyncVoxelization ? model.getVoxelizedOrBounds(use) : model.getVoxelized(use, OBJSONVoxelizerExecutor.Priority.BLOCKING);
+    }
+
+    private OBJSON loadOBJSON(ResourceLocation loc) {
+        long t0 = System.nanoTime();
+        OBJSON model = OBJSON.fromResource(loc);
+        model.setVoxelCache(this.getVoxelCache());
+        long t1 = System.nanoTime();
+        String msg = String.format("Loaded and cached '%s' from %s in %s nanos.", loc.getPath(), model.isCompiled() ? "compiled model" : "JSON", t1 - t0);
+        StartupMessageManager.addModMessage(msg);
+        ArchitectureLog.info(msg);
+        return model;
+    }
+
+    /**
+     * Loads and voxelizes every model used by a shape or block in parallel, so they are never loaded on demand.
+     */
+    private void preloadModels() {
+        Set<String> names = Sets.newLinkedHashSet();
+        for (EnumShape shape : EnumShape.values()) {
+            if (shape.behaviour instanceof ShapeBehaviourModel behaviour)
+                names.add(behaviour.getModelName());
+        }
+        for (Block block : ArchitectureContent.registeredBlocks.values()) {
+            if (block instanceof BlockArchitecture architectureBlock) {
+                for (BlockState state : block.getStateDefinition().getPossibleStates()) {
+                    ModelSpec spec = architectureBlock.getModelSpec(state);
+                    if (spec != null && spec.modelName != null)
+                        names.add(spec.modelName);
+                }
+            }
+        }
+
+        int threads = ArchitectureConfig.getPreloadThreads();
+        ArchitectureLog.info("Preloading {} models on {} threads", names.size(), threads);
+        ProgressMeter progress = StartupMessageManager.addProgressBar("ArchitectureCraft models", names.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("ArchitectureCraft Model Preload #%d")
+                .setDaemon(true)
+                .build());
+        long t0 = System.nanoTime();
+        try {
+            List<Future<?>> futures = names.stream().<Future<?>>map(name -> executor.submit(() -> {
+                try {
+                    this.getCachedOBJSON(name, OBJSONVoxelizerExecutor.Priority.BACKGROUND);
+                } catch (Exception ex) {
+                    ArchitectureLog.error("Failed to preload model '{}', it will be loaded on demand.", name, ex);
+                } finally {
+                    progress.increment();
+                }
+            })).toList();
+            int i = 0;
+            for (String name : names) {
+                try {
+                    futures.get(i++).get();
+                } catch (ExecutionException ex) {
+                    ArchitectureLog.error("Failed to preload model '{}', it will be loaded on demand.", name, ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            ArchitectureLog.error("Interrupted while preloading models, the rest will be loaded on demand");
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            progress.complete();
+        }
+        ArchitectureLog.info("Preloaded {} models in {} nanos", names.size(), System.nanoTime() - t0);
+        this.getVoxelCache().logStatistics();
+    }
+
+    public synchronized OBJSONVoxelCache getVoxelCache() {
+        if (this.voxelCache == null)
+            this.voxelCache = new OBJSONVoxelCache(FMLPaths.CONFIGDIR.get().resolve(ArchitectureMod.MOD_ID).resolve("voxcache"));
+        return this.voxelCache;
+    }
+
     public ResourceLocation modelLocation(String path) {
         return new ResourceLocation(ArchitectureMod.MOD_ID, path);
     }
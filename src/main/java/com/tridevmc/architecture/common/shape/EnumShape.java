@@ -25,6 +25,7 @@
 package com.tridevmc.architecture.common.shape;
 
 import com.google.common.collect.ImmutableMap;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution.Use;
 import com.tridevmc.architecture.common.block.entity.ShapeBlockEntity;
 import com.tridevmc.architecture.common.helpers.Profile;
 import com.tridevmc.architecture.common.helpers.Trans3;
@@ -35,8 +36,10 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.util.StringRepresentable;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.shapes.VoxelShape;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -177,6 +180,8 @@ public enum EnumShape implements StringRepresentable {
     public int occlusionMask;
     public int flags;
 
+    private final OrientedShapeTable orientedShapes = new OrientedShapeTable();
+
     EnumShape(int id, String translationKey, ShapeBehaviour behaviour, ShapeSymmetry sym, int materialCost, int itemsProduced, int occlusionMask) {
         this(id, translationKey, behaviour, sym, materialCost, itemsProduced, occlusionMask, 0);
     }
@@ -192,6 +197,24 @@ public enum EnumShape implements StringRepresentable {
         this.flags = flags;
     }
 
+    /**
+     * Gets the shape of the given block for the given use from its {@link OrientedShapeTable}, transforming the shape
+     * into the orientation of the block the first time it is seen.
+     *
+     * @return the shape, or null if it can't be tabled and has to be fetched from the behaviour.
+     */
+    public VoxelShape getOrientedShape(Use use, ShapeBlockEntity te, BlockGetter level, BlockPos pos, BlockState state) {
+        if (!this.behaviour.hasOrientedShapes())
+            return null;
+        // The transformation of a shape block is the canonical one for its orientation, see ShapeBlockEntity.
+        return this.orientedShapes.get(use, te.getSide(), te.getTurn(), (int) Math.round(te.getOffsetX() * 16), t -> {
+            // Checked before the shape is fetched, a shape is never provisional once the check passes.
+            if (this.behaviour.isShapeProvisional(use))
+                return null;
+            return this.behaviour.getShape(use, te, level, pos, state, null, t);
+        });
+    }
+
     public static EnumShape forId(int id) {
         return SHAPES_BY_ID.getOrDefault(id, ROOF_TILE);
     }
@@ -0,0 +1,70 @@
+package com.tridevmc.architecture.common.shape;
+
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution.Use;
+import com.tridevmc.architecture.common.helpers.Trans3;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Transformed shapes of a single {@link EnumShape}, indexed by use then orientation and filled as each orientation is
+ * first used.
+ * <p>
+ * The server thread and the chunk builders read these, tables and entries are published with release writes and read
+ * with acquire reads. Entries are written without locking, at worst two threads compute the same immutable shape.
+ */
+public class OrientedShapeTable {
+
+    // Shapes are tabled for every side and turn, with an offset of up to a block either way in sixteenths.
+    private static final int MAX_TABLED_OFFSET = 16;
+    private static final int TABLED_ORIENTATIONS = 24 * (2 * MAX_TABLED_OFFSET + 1);
+
+    private final AtomicReferenceArray<AtomicReferenceArray<VoxelShape>> shapes = new AtomicReferenceArray<>(Use.values().length);
+
+    /**
+     * Packs the orientation of a shape block into a key of the table. Disabled connections are left out, only windows
+     * have shapes that depend on them and windows have no oriented shapes, see
+     * {@link com.tridevmc.architecture.common.shape.behaviour.ShapeBehaviour#hasOrientedShapes()}.
+     *
+     * @param side    the side the block is placed against.
+     * @param turn    the turn of the block.
+     * @param offsetX the offset of the block along its local X axis, in sixteenths.
+     * @return the key, or -1 if the offset is too large to be tabled.
+     */
+    public static int getKey(int side, int turn, int offsetX) {
+        if (Math.abs(offsetX) > MAX_TABLED_OFFSET)
+            return -1;
+        return (offsetX + MAX_TABLED_OFFSET) * 24 + side * 4 + turn;
+    }
+
+    /**
+     * Gets the shape for the given use and orientation, fetching it with the transformation of the orientation the first
+     * time it is seen.
+     *
+     * @param offsetX the offset of the block along its local X axis, in sixteenths.
+     * @param shape   fetches the shape given its transformation, or returns null if it isn't ready to be tabled.
+     * @return the shape, or null if it can't be tabled and has to be fetched uncached.
+     */
+    public VoxelShape get(Use use, int side, int turn, int offsetX, Function<Trans3, VoxelShape> shape) {
+        int key = getKey(side, turn, offsetX);
+        if (key == -1)
+            return null;
+        AtomicReferenceArray<VoxelShape> shapes = this.shapes.getAcquire(use.ordinal());
+        if (shapes == null) {
+            // Only one table may win, or shapes written into the losing one would be lost.
+            var created = new AtomicReferenceArray<VoxelShape>(TABLED_ORIENTATIONS);
+            shapes = this.shapes.compareAndExchange(use.ordinal(), null, created);
+            if (shapes == null)
+                shapes = created;
+        }
+        VoxelShape out = shapes.getAcquire(key);
+        if (out == null) {
+            out = shape.apply(Trans3.oriented(side, turn, offsetX));
+            if (out == null || out.isEmpty())
+                return null;
+            shapes.setRelease(key, out);
+        }
+        return out;
+    }
+}
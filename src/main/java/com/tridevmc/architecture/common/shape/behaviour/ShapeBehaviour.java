@@ -1,8 +1,6 @@
 package com.tridevmc.architecture.common.shape.behaviour;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution.Use;
 import com.tridevmc.architecture.common.ArchitectureMod;
 import com.tridevmc.architecture.common.block.entity.ShapeBlockEntity;
 import com.tridevmc.architecture.common.helpers.Profile;
@@ -10,6 +8,8 @@ import com.tridevmc.architecture.common.helpers.Trans3;
 import com.tridevmc.architecture.common.helpers.Utils;
 import com.tridevmc.architecture.common.helpers.Vector3;
 import com.tridevmc.architecture.common.shape.EnumShape;
+import com.tridevmc.architecture.common.shape.OrientedShapeTable;
+import com.tridevmc.architecture.common.utils.ConcurrentLongKeyedCache;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.world.entity.Entity;
@@ -23,17 +23,12 @@ import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 
 import javax.annotation.Nonnull;
-import java.util.Objects;
 
 import static net.minecraft.core.Direction.*;
 
 public class ShapeBehaviour {
 
-    private static final LoadingCache<BehaviourState, VoxelShape> SHAPE_CACHE = CacheBuilder.newBuilder().build(new CacheLoader<BehaviourState, VoxelShape>() {
-        public VoxelShape load(@Nonnull BehaviourState behaviourState) {
-            return behaviourState.shapeBehaviour.getCollisionBox(behaviourState.tile, behaviourState.world, behaviourState.pos, behaviourState.state, behaviourState.entity, behaviourState.transform);
-        }
-    });
+    private static final ConcurrentLongKeyedCache<VoxelShape> SHAPE_CACHE = new ConcurrentLongKeyedCache<>("Shape cache", 4096);
 
     public static ShapeBehaviour DEFAULT = new ShapeBehaviour();
 
@@ -159,22 +154,100 @@ public class ShapeBehaviour {
         return false;
     }
 
+    /**
+     * Gets the shape rays are picked against, which may be finer than the collision shape.
+     */
     @Nonnull
     public final VoxelShape getBounds(ShapeBlockEntity te, BlockGetter world, BlockPos pos, BlockState state,
                                       Entity entity, Trans3 t) {
-        return this.getCollisionBoxCached(te, world, pos, state, entity, t);
+        return this.getShapeCached(Use.PICKING, te, world, pos, state, entity, t);
+    }
+
+    /**
+     * Determines if the shapes of this behaviour are placeholders that will change once they are ready, such as the
+     * bounds of a model that is still being voxelized. Provisional shapes are never cached.
+     *
+     * @param use the use of the shape.
+     * @return true if the shapes of this behaviour are provisional, false otherwise.
+     */
+    public boolean isShapeProvisional(Use use) {
+        return false;
+    }
+
+    /**
+     * Determines if the shapes of this behaviour depend on nothing but the shape and orientation of the block, so they
+     * can be tabled by orientation, see {@link EnumShape#getOrientedShape}. Shapes that depend on anything else, such as
+     * the neighbours of the block or the entity asking, are never cached.
+     */
+    public boolean hasOrientedShapes() {
+        return true;
+    }
+
+    /**
+     * Gets the shape of the given block for the given use, without caching it.
+     */
+    @Nonnull
+    public final VoxelShape getShape(Use use, ShapeBlockEntity te, BlockGetter world, BlockPos pos, BlockState state, Entity entity, Trans3 t) {
+        if (use == Use.PICKING)
+            return this.getPickingBox(te, world, pos, state, entity, t);
+        return this.getCollisionBox(te, world, pos, state, entity, t);
     }
 
     @Nonnull
     public final VoxelShape getCollisionBoxCached(ShapeBlockEntity te, BlockGetter world, BlockPos pos, BlockState state, Entity entity, Trans3 t) {
-        BehaviourState bState = new BehaviourState(this, te, world, pos, state, entity, t);
-        VoxelShape out = SHAPE_CACHE.getUnchecked(bState);
-        if (out.isEmpty()) {
-            SHAPE_CACHE.invalidate(bState);
+        return this.getShapeCached(Use.COLLISION, te, world, pos, state, entity, t);
+    }
+
+    /**
+     * Gets a shape through the shape cache, which only holds orientations {@link EnumShape#getOrientedShape} doesn't
+     * table. Tabled orientations only get here when the table declined the shape, so they are never cached twice.
+     */
+    private VoxelShape getShapeCached(Use use, ShapeBlockEntity te, BlockGetter world, BlockPos pos, BlockState state, Entity entity, Trans3 t) {
+        if (!this.hasOrientedShapes()
+                || OrientedShapeTable.getKey(te.getSide(), te.getTurn(), (int) Math.round(te.getOffsetX() * 16)) != -1)
+            return this.getShape(use, te, world, pos, state, entity, t);
+        long key = getShapeKey(use, te);
+        VoxelShape out = SHAPE_CACHE.get(key);
+        if (out == null) {
+            // Checked before the shape is fetched, a shape is never provisional once the check passes.
+            boolean provisional = this.isShapeProvisional(use);
+            out = this.getShape(use, te, world, pos, state, entity, t);
+            if (!out.isEmpty() && !provisional) {
+                SHAPE_CACHE.put(key, out);
+            }
         }
         return out;
     }
 
+    /**
+     * Packs everything the cached shape of a block depends on into a key, the transformation a shape is fetched with is
+     * always the local to global transformation of its block entity, so it follows from the side, turn and offset.
+     * <p>
+     * Bits 0-7 hold the shape, 8 the use, 9-16 the side, 17-24 the turn and 25-32 the offset in sixteenths. Disabled
+     * connections are left out, only windows have shapes that depend on them and they have no oriented shapes, so they
+     * never reach the cache.
+     */
+    private static long getShapeKey(Use use, ShapeBlockEntity te) {
+        return te.getArchitectureShape().ordinal()
+                | (long) use.ordinal() << 8
+                | (long) (te.getSide() & 0xFF) << 9
+                | (long) (te.getTurn() & 0xFF) << 17
+                | (long) (Math.round(te.getOffsetX() * 16) & 0xFF) << 25;
+    }
+
+    public static void logCacheStatistics() {
+        SHAPE_CACHE.logStatistics();
+    }
+
+    /**
+     * Gets the shape rays are picked against, the same as the collision box unless overridden.
+     */
+    @Nonnull
+    protected VoxelShape getPickingBox(ShapeBlockEntity te, BlockGetter world, BlockPos pos, BlockState state,
+                                       Entity entity, Trans3 t) {
+        return this.getCollisionBox(te, world, pos, state, entity, t);
+    }
+
     @Nonnull
     @Deprecated //TODO: Default implementation needs to be nuked. All the old collision code is too janky.
     protected VoxelShape getCollisionBox(ShapeBlockEntity te, BlockGetter world, BlockPos pos, BlockState state,
@@ -225,40 +298,4 @@ public class ShapeBehaviour {
     protected VoxelShape addBox(Vector3 p0, Vector3 p1, Trans3 t, VoxelShape shape) {
         return Shapes.or(shape, t.t(Shapes.create(p0.x, p0.y, p0.z, p1.x, p1.y, p1.z)));
     }
-
-    private class BehaviourState {
-        private final ShapeBehaviour shapeBehaviour;
-        private final ShapeBlockEntity tile;
-        private final BlockGetter world;
-        private final BlockPos pos;
-        private final BlockState state;
-        private final Entity entity;
-        private final Trans3 transform;
-
-        private BehaviourState(ShapeBehaviour shapeBehaviour, ShapeBlockEntity tile, BlockGetter world, BlockPos pos, BlockState state, Entity entity, Trans3 transform) {
-            this.shapeBehaviour = shapeBehaviour;
-            this.tile = tile;
-            this.world = world;
-            this.pos = pos;
-            this.state = state;
-            this.entity = entity;
-            this.transform = transform;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof BehaviourState that)) return false;
-            return Objects.equals(this.state, that.state) &&
-                    Objects.equals(this.transform, that.transform) &&
-                    Objects.equals(this.tile.getDisabledConnections(), that.tile.getDisabledConnections()) &&
-                    Objects.equals(this.tile.getSide(), that.tile.getSide()) &&
-                    Objects.equals(this.tile.getTurn(), that.tile.getTurn());
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(this.state, this.transform, this.tile.getDisabledConnections(), this.tile.getSide(), this.tile.getTurn());
-        }
-    }
 }
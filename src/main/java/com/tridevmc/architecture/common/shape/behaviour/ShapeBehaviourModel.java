@@ -1,6 +1,7 @@
 package com.tridevmc.architecture.common.shape.behaviour;
 
 import com.tridevmc.architecture.client.render.model.objson.OBJSON;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution.Use;
 import com.tridevmc.architecture.common.ArchitectureMod;
 import com.tridevmc.architecture.common.block.entity.ShapeBlockEntity;
 import com.tridevmc.architecture.common.helpers.Trans3;
@@ -9,7 +10,6 @@ import net.minecraft.world.entity.Entity;
 import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.AABB;
-import net.minecraft.world.phys.shapes.Shapes;
 import net.minecraft.world.phys.shapes.VoxelShape;
 
 public class ShapeBehaviourModel extends ShapeBehaviour {
@@ -52,13 +52,23 @@ public class ShapeBehaviourModel extends ShapeBehaviour {
 
     @Override
     protected VoxelShape getCollisionBox(ShapeBlockEntity te, BlockGetter world, BlockPos pos, BlockState state, Entity entity, Trans3 t) {
-        return t.t(this.getOBJSONModel().getVoxelized());
+        return t.t(ArchitectureMod.PROXY.getVoxelized(this.getOBJSONModel(), Use.COLLISION));
+    }
+
+    @Override
+    protected VoxelShape getPickingBox(ShapeBlockEntity te, BlockGetter world, BlockPos pos, BlockState state, Entity entity, Trans3 t) {
+        return t.t(ArchitectureMod.PROXY.getVoxelized(this.getOBJSONModel(), Use.PICKING));
+    }
+
+    @Override
+    public boolean isShapeProvisional(Use use) {
+        return !this.getOBJSONModel().isVoxelized(use);
     }
 
     @Override
     public double placementOffsetX() {
-        VoxelShape shape = this.getOBJSONModel().getShape(Trans3.ident, Shapes.empty());
-        AABB bounds = shape.bounds();
+        // The bounds of the mesh, so placing a shape never waits on it being voxelized.
+        AABB bounds = this.getOBJSONModel().getBounds();
         return 0.5 * (1 - (bounds.maxX - bounds.minX));
     }
 }
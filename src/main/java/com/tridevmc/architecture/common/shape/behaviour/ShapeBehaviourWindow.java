@@ -76,6 +76,12 @@ public class ShapeBehaviourWindow extends ShapeBehaviour {
         return block instanceof CrossCollisionBlock;
     }
 
+    @Override
+    public boolean hasOrientedShapes() {
+        // Frames depend on the neighbouring windows and the glass on the secondary material.
+        return false;
+    }
+
     @Override
     protected VoxelShape getCollisionBox(ShapeBlockEntity te, BlockGetter world, BlockPos pos, BlockState state, Entity entity, Trans3 t) {
         VoxelShape shape = Shapes.empty();
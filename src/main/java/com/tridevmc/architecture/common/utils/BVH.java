@@ -0,0 +1,531 @@
+package com.tridevmc.architecture.common.utils;
+
+import net.minecraft.world.phys.AABB;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * A bounding volume hierarchy over a fixed set of primitives, built in bulk and stored in flat arrays.
+ * <p>
+ * Primitives are referred to by their index in the bounds array the hierarchy was built from. Nodes are split with a
+ * binned surface area heuristic, falling back to a median split when the heuristic can't separate the primitives.
+ * Nodes are laid out depth first, so the left child of an internal node always directly follows it.
+ */
+public class BVH {
+
+    private static final int MAX_LEAF_SIZE = 4;
+    private static final int BIN_COUNT = 12;
+    private static final double TRAVERSAL_COST = 1D;
+    private static final double INTERSECTION_COST = 1D;
+
+    private final double[] primBounds;
+    private final int[] primIndices;
+
+    // 6 doubles per node, min xyz then max xyz.
+    private final double[] nodeBounds;
+    // 2 ints per node, the index of the right child and 0 for internal nodes, or the first primitive and count for leaves.
+    private final int[] nodeData;
+    private int nodeCount;
+    private int maxDepth;
+
+    /**
+     * Builds a hierarchy over the given primitive bounds.
+     *
+     * @param primBounds 6 doubles per primitive, min xyz then max xyz.
+     */
+    public BVH(double[] primBounds) {
+        this.primBounds = primBounds;
+        int count = primBounds.length / 6;
+        this.primIndices = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.primIndices[i] = i;
+        }
+        this.nodeBounds = new double[Math.max(1, 2 * count - 1) * 6];
+        this.nodeData = new int[Math.max(1, 2 * count - 1) * 2];
+        if (count > 0) {
+            double[] centroids = new double[count * 3];
+            for (int i = 0; i < count; i++) {
+                for (int axis = 0; axis < 3; axis++) {
+                    centroids[i * 3 + axis] = (primBounds[i * 6 + axis] + primBounds[i * 6 + axis + 3]) * 0.5D;
+                }
+            }
+            this.build(centroids, 0, count, 1);
+        } else {
+            // An empty hierarchy has a single empty leaf with inverted bounds that nothing intersects.
+            Arrays.fill(this.nodeBounds, 0, 3, Double.POSITIVE_INFINITY);
+            Arrays.fill(this.nodeBounds, 3, 6, Double.NEGATIVE_INFINITY);
+            this.nodeCount = 1;
+        }
+    }
+
+    public int getPrimitiveCount() {
+        return this.primIndices.length;
+    }
+
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * Gets the index of the right child of an internal node, the left child is always the node after it.
+     */
+    int getRightChild(int node) {
+        return this.nodeData[node * 2];
+    }
+
+    /**
+     * Gets the number of primitives in a node, 0 for internal nodes.
+     */
+    int getLeafCount(int node) {
+        return this.nodeData[node * 2 + 1];
+    }
+
+    /**
+     * Gets the position of the first primitive of a leaf, the primitives of every subtree are contiguous.
+     */
+    int getLeafStart(int node) {
+        return this.nodeData[node * 2];
+    }
+
+    /**
+     * Gets the primitive at the given position in the order the leaves refer to them.
+     *
+     * @return the index of the primitive in the bounds the hierarchy was built from.
+     */
+    int getPrimitiveAt(int i) {
+        return this.primIndices[i];
+    }
+
+    /**
+     * Gets the bounds of every primitive in the hierarchy.
+     *
+     * @return the bounds of the root node.
+     */
+    public AABB getBounds() {
+        return new AABB(this.nodeBounds[0], this.nodeBounds[1], this.nodeBounds[2], this.nodeBounds[3], this.nodeBounds[4], this.nodeBounds[5]);
+    }
+
+    /**
+     * Visits every primitive whose bounds intersect the given box, touching does not count as intersecting.
+     *
+     * @param box  the box to search.
+     * @param sink called with the index of each intersecting primitive, return false to stop the search.
+     * @return false if the sink stopped the search, true otherwise.
+     */
+    public boolean search(AABB box, IntPredicate sink) {
+        return this.search(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ, sink);
+    }
+
+    /**
+     * Visits every primitive whose bounds intersect the given box, touching does not count as intersecting.
+     *
+     * @param sink called with the index of each intersecting primitive, return false to stop the search.
+     * @return false if the sink stopped the search, true otherwise.
+     */
+    public boolean search(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, IntPredicate sink) {
+        int[] stack = new int[this.maxDepth + 2];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[--size];
+            if (!intersects(this.nodeBounds, node * 6, minX, minY, minZ, maxX, maxY, maxZ))
+                continue;
+            int count = this.nodeData[node * 2 + 1];
+            if (count == 0) {
+                stack[size++] = this.nodeData[node * 2];
+                stack[size++] = node + 1;
+            } else {
+                int first = this.nodeData[node * 2];
+                for (int i = first; i < first + count; i++) {
+                    int prim = this.primIndices[i];
+                    if (intersects(this.primBounds, prim * 6, minX, minY, minZ, maxX, maxY, maxZ) && !sink.test(prim))
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the nearest primitive hit by a ray, visiting nodes front to back and skipping any that start beyond the
+     * nearest hit found so far.
+     *
+     * @param ox          the x coordinate of the origin of the ray.
+     * @param oy          the y coordinate of the origin of the ray.
+     * @param oz          the z coordinate of the origin of the ray.
+     * @param dx          the x component of the direction of the ray.
+     * @param dy          the y component of the direction of the ray.
+     * @param dz          the z component of the direction of the ray.
+     * @param tMax        the furthest distance along the ray to search, in multiples of the direction.
+     * @param intersector intersects the ray with a primitive.
+     * @param out         cleared, then given the nearest hit if there is one.
+     * @return true if the ray hit a primitive, false otherwise.
+     */
+    public boolean raycastNearest(double ox, double oy, double oz, double dx, double dy, double dz, double tMax,
+                                  RayIntersector intersector, RayHits out) {
+        out.clear();
+        // The inverted bounds of an empty hierarchy don't stop rays that move along every axis.
+        if (this.primIndices.length == 0)
+            return false;
+        double nearest = Double.POSITIVE_INFINITY;
+        int nearestPrim = -1;
+        int[] stack = new int[this.maxDepth + 2];
+        double[] stackT = new double[this.maxDepth + 2];
+        int size = 0;
+        double rootT = slabEntry(this.nodeBounds, 0, ox, oy, oz, dx, dy, dz, tMax);
+        if (!Double.isNaN(rootT)) {
+            stack[size] = 0;
+            stackT[size++] = rootT;
+        }
+        while (size > 0) {
+            int node = stack[--size];
+            if (stackT[size] > nearest)
+                continue;
+            int count = this.nodeData[node * 2 + 1];
+            if (count == 0) {
+                size = this.pushChildren(node, stack, stackT, size, ox, oy, oz, dx, dy, dz, Math.min(tMax, nearest));
+            } else {
+                int first = this.nodeData[node * 2];
+                for (int i = first; i < first + count; i++) {
+                    int prim = this.primIndices[i];
+                    if (Double.isNaN(slabEntry(this.primBounds, prim * 6, ox, oy, oz, dx, dy, dz, tMax)))
+                        continue;
+                    double t = intersector.intersect(prim);
+                    if (t < nearest) {
+                        nearest = t;
+                        nearestPrim = prim;
+                    }
+                }
+            }
+        }
+        if (nearestPrim < 0)
+            return false;
+        out.add(nearestPrim, nearest);
+        return true;
+    }
+
+    /**
+     * Finds every primitive hit by a ray, sorted from nearest to furthest.
+     *
+     * @param ox          the x coordinate of the origin of the ray.
+     * @param oy          the y coordinate of the origin of the ray.
+     * @param oz          the z coordinate of the origin of the ray.
+     * @param dx          the x component of the direction of the ray.
+     * @param dy          the y component of the direction of the ray.
+     * @param dz          the z component of the direction of the ray.
+     * @param tMax        the furthest distance along the ray to search, in multiples of the direction.
+     * @param intersector intersects the ray with a primitive.
+     * @param out         cleared, then given every hit in order of distance.
+     * @return the number of hits.
+     */
+    public int raycastAll(double ox, double oy, double oz, double dx, double dy, double dz, double tMax,
+                          RayIntersector intersector, RayHits out) {
+        out.clear();
+        if (this.primIndices.length == 0)
+            return 0;
+        int[] stack = new int[this.maxDepth + 2];
+        double[] stackT = new double[this.maxDepth + 2];
+        int size = 0;
+        double rootT = slabEntry(this.nodeBounds, 0, ox, oy, oz, dx, dy, dz, tMax);
+        if (!Double.isNaN(rootT)) {
+            stack[size] = 0;
+            stackT[size++] = rootT;
+        }
+        while (size > 0) {
+            int node = stack[--size];
+            int count = this.nodeData[node * 2 + 1];
+            if (count == 0) {
+                size = this.pushChildren(node, stack, stackT, size, ox, oy, oz, dx, dy, dz, tMax);
+            } else {
+                int first = this.nodeData[node * 2];
+                for (int i = first; i < first + count; i++) {
+                    int prim = this.primIndices[i];
+                    if (Double.isNaN(slabEntry(this.primBounds, prim * 6, ox, oy, oz, dx, dy, dz, tMax)))
+                        continue;
+                    double t = intersector.intersect(prim);
+                    if (!Double.isNaN(t))
+                        out.add(prim, t);
+                }
+            }
+        }
+        // Nodes are visited front to back so hits are mostly in order already.
+        out.sort();
+        return out.size();
+    }
+
+    /**
+     * Pushes the children of an internal node that the ray enters, the nearer child last so it is visited first.
+     */
+    private int pushChildren(int node, int[] stack, double[] stackT, int size,
+                             double ox, double oy, double oz, double dx, double dy, double dz, double tMax) {
+        int left = node + 1;
+        int right = this.nodeData[node * 2];
+        double leftT = slabEntry(this.nodeBounds, left * 6, ox, oy, oz, dx, dy, dz, tMax);
+        double rightT = slabEntry(this.nodeBounds, right * 6, ox, oy, oz, dx, dy, dz, tMax);
+        if (!Double.isNaN(leftT) && !Double.isNaN(rightT)) {
+            boolean leftFirst = leftT <= rightT;
+            stack[size] = leftFirst ? right : left;
+            stackT[size++] = leftFirst ? rightT : leftT;
+            stack[size] = leftFirst ? left : right;
+            stackT[size++] = leftFirst ? leftT : rightT;
+        } else if (!Double.isNaN(leftT)) {
+            stack[size] = left;
+            stackT[size++] = leftT;
+        } else if (!Double.isNaN(rightT)) {
+            stack[size] = right;
+            stackT[size++] = rightT;
+        }
+        return size;
+    }
+
+    /**
+     * Slab test between a ray and a box. On axes the ray doesn't move along the origin has to be strictly inside the
+     * box, matching {@link #search} where touching does not count as intersecting.
+     *
+     * @return the distance along the ray at which it enters the box, or NaN if it misses.
+     */
+    private static double slabEntry(double[] bounds, int offset, double ox, double oy, double oz,
+                                    double dx, double dy, double dz, double tMax) {
+        double tNear = 0, tFar = tMax;
+        if (dx == 0) {
+            if (!(bounds[offset] < ox && ox < bounds[offset + 3]))
+                return Double.NaN;
+        } else {
+            double t1 = (bounds[offset] - ox) / dx, t2 = (bounds[offset + 3] - ox) / dx;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (!(bounds[offset + 1] < oy && oy < bounds[offset + 4]))
+                return Double.NaN;
+        } else {
+            double t1 = (bounds[offset + 1] - oy) / dy, t2 = (bounds[offset + 4] - oy) / dy;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        if (dz == 0) {
+            if (!(bounds[offset + 2] < oz && oz < bounds[offset + 5]))
+                return Double.NaN;
+        } else {
+            double t1 = (bounds[offset + 2] - oz) / dz, t2 = (bounds[offset + 5] - oz) / dz;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        return tNear <= tFar ? tNear : Double.NaN;
+    }
+
+    private static boolean intersects(double[] bounds, int offset, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        return bounds[offset] < maxX && bounds[offset + 3] > minX
+                && bounds[offset + 1] < maxY && bounds[offset + 4] > minY
+                && bounds[offset + 2] < maxZ && bounds[offset + 5] > minZ;
+    }
+
+    private int build(double[] centroids, int start, int end, int depth) {
+        int node = this.nodeCount++;
+        this.maxDepth = Math.max(this.maxDepth, depth);
+
+        // Bounds of the primitives and of their centroids.
+        double[] bounds = this.nodeBounds;
+        int o = node * 6;
+        bounds[o] = bounds[o + 1] = bounds[o + 2] = Double.POSITIVE_INFINITY;
+        bounds[o + 3] = bounds[o + 4] = bounds[o + 5] = Double.NEGATIVE_INFINITY;
+        double[] centroidMin = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] centroidMax = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = start; i < end; i++) {
+            int prim = this.primIndices[i];
+            for (int axis = 0; axis < 3; axis++) {
+                bounds[o + axis] = Math.min(bounds[o + axis], this.primBounds[prim * 6 + axis]);
+                bounds[o + axis + 3] = Math.max(bounds[o + axis + 3], this.primBounds[prim * 6 + axis + 3]);
+                centroidMin[axis] = Math.min(centroidMin[axis], centroids[prim * 3 + axis]);
+                centroidMax[axis] = Math.max(centroidMax[axis], centroids[prim * 3 + axis]);
+            }
+        }
+
+        int count = end - start;
+        if (count <= MAX_LEAF_SIZE) {
+            this.makeLeaf(node, start, count);
+            return node;
+        }
+
+        // Find the cheapest binned split over every axis.
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1, bestBin = -1;
+        int[] binCounts = new int[BIN_COUNT];
+        double[] binBounds = new double[BIN_COUNT * 6];
+        double[] rightAreas = new double[BIN_COUNT];
+        for (int axis = 0; axis < 3; axis++) {
+            double extent = centroidMax[axis] - centroidMin[axis];
+            if (extent <= 0)
+                continue;
+            Arrays.fill(binCounts, 0);
+            for (int b = 0; b < BIN_COUNT; b++) {
+                resetBounds(binBounds, b * 6);
+            }
+            for (int i = start; i < end; i++) {
+                int prim = this.primIndices[i];
+                int b = this.binOf(centroids[prim * 3 + axis], centroidMin[axis], extent);
+                binCounts[b]++;
+                growBounds(binBounds, b * 6, this.primBounds, prim * 6);
+            }
+
+            double[] accumulated = new double[6];
+            resetBounds(accumulated, 0);
+            int rightCount = 0;
+            int[] rightCounts = new int[BIN_COUNT];
+            for (int b = BIN_COUNT - 1; b > 0; b--) {
+                growBounds(accumulated, 0, binBounds, b * 6);
+                rightCount += binCounts[b];
+                rightCounts[b] = rightCount;
+                rightAreas[b] = surfaceArea(accumulated, 0);
+            }
+            resetBounds(accumulated, 0);
+            int leftCount = 0;
+            for (int b = 0; b < BIN_COUNT - 1; b++) {
+                growBounds(accumulated, 0, binBounds, b * 6);
+                leftCount += binCounts[b];
+                if (leftCount == 0 || rightCounts[b + 1] == 0)
+                    continue;
+                double cost = leftCount * surfaceArea(accumulated, 0) + rightCounts[b + 1] * rightAreas[b + 1];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+
+        int mid;
+        if (bestAxis >= 0) {
+            double nodeArea = surfaceArea(bounds, o);
+            double splitCost = TRAVERSAL_COST + INTERSECTION_COST * bestCost / Math.max(nodeArea, Double.MIN_VALUE);
+            if (splitCost >= INTERSECTION_COST * count && count <= MAX_LEAF_SIZE * 4) {
+                this.makeLeaf(node, start, count);
+                return node;
+            }
+            mid = this.partition(centroids, start, end, bestAxis, centroidMin[bestAxis], centroidMax[bestAxis] - centroidMin[bestAxis], bestBin);
+        } else {
+            // Every centroid is in the same place, split down the middle of the list.
+            mid = start + count / 2;
+        }
+
+        this.build(centroids, start, mid, depth + 1);
+        int right = this.build(centroids, mid, end, depth + 1);
+        this.nodeData[node * 2] = right;
+        this.nodeData[node * 2 + 1] = 0;
+        return node;
+    }
+
+    private void makeLeaf(int node, int start, int count) {
+        this.nodeData[node * 2] = start;
+        this.nodeData[node * 2 + 1] = count;
+    }
+
+    private int binOf(double centroid, double min, double extent) {
+        int b = (int) ((centroid - min) / extent * BIN_COUNT);
+        return Math.min(BIN_COUNT - 1, Math.max(0, b));
+    }
+
+    private int partition(double[] centroids, int start, int end, int axis, double min, double extent, int splitBin) {
+        int i = start, j = end - 1;
+        while (i <= j) {
+            if (this.binOf(centroids[this.primIndices[i] * 3 + axis], min, extent) <= splitBin) {
+                i++;
+            } else {
+                int tmp = this.primIndices[i];
+                this.primIndices[i] = this.primIndices[j];
+                this.primIndices[j--] = tmp;
+            }
+        }
+        return i;
+    }
+
+    private static void resetBounds(double[] bounds, int offset) {
+        bounds[offset] = bounds[offset + 1] = bounds[offset + 2] = Double.POSITIVE_INFINITY;
+        bounds[offset + 3] = bounds[offset + 4] = bounds[offset + 5] = Double.NEGATIVE_INFINITY;
+    }
+
+    private static void growBounds(double[] bounds, int offset, double[] other, int otherOffset) {
+        for (int axis = 0; axis < 3; axis++) {
+            bounds[offset + axis] = Math.min(bounds[offset + axis], other[otherOffset + axis]);
+            bounds[offset + axis + 3] = Math.max(bounds[offset + axis + 3], other[otherOffset + axis + 3]);
+        }
+    }
+
+    private static double surfaceArea(double[] bounds, int offset) {
+        double x = bounds[offset + 3] - bounds[offset];
+        double y = bounds[offset + 4] - bounds[offset + 1];
+        double z = bounds[offset + 5] - bounds[offset + 2];
+        if (x < 0 || y < 0 || z < 0)
+            return 0;
+        return 2D * (x * y + y * z + z * x);
+    }
+
+    /**
+     * Intersects a ray with a single primitive of the hierarchy.
+     */
+    @FunctionalInterface
+    public interface RayIntersector {
+        /**
+         * @param primitive the index of the primitive.
+         * @return the distance along the ray of the hit in multiples of its direction, or NaN if it misses.
+         */
+        double intersect(int primitive);
+    }
+
+    /**
+     * A reusable buffer of ray hits, each a primitive index and its distance along the ray.
+     */
+    public static class RayHits {
+        private int[] primitives = new int[16];
+        private double[] distances = new double[16];
+        private int size;
+
+        public void clear() {
+            this.size = 0;
+        }
+
+        public void add(int primitive, double distance) {
+            if (this.size == this.primitives.length) {
+                this.primitives = Arrays.copyOf(this.primitives, this.size * 2);
+                this.distances = Arrays.copyOf(this.distances, this.size * 2);
+            }
+            this.primitives[this.size] = primitive;
+            this.distances[this.size++] = distance;
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        public int getPrimitive(int i) {
+            return this.primitives[i];
+        }
+
+        public double getDistance(int i) {
+            return this.distances[i];
+        }
+
+        /**
+         * Sorts the hits by distance, insertion sort as they are usually close to sorted.
+         */
+        public void sort() {
+            for (int i = 1; i < this.size; i++) {
+                int primitive = this.primitives[i];
+                double distance = this.distances[i];
+                int j = i - 1;
+                while (j >= 0 && this.distances[j] > distance) {
+                    this.primitives[j + 1] = this.primitives[j];
+                    this.distances[j + 1] = this.distances[j];
+                    j--;
+                }
+                this.primitives[j + 1] = primitive;
+                this.distances[j + 1] = distance;
+            }
+        }
+    }
+}
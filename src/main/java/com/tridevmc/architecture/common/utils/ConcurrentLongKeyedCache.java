@@ -0,0 +1,139 @@
+package com.tridevmc.architecture.common.utils;
+
+import com.tridevmc.architecture.common.ArchitectureLog;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed size cache of values by packed long keys that any number of threads can read and write without locking.
+ * <p>
+ * Each key may only live in one of two neighbouring slots of a table, so a lookup is at most two reads of immutable
+ * entries that hold their full key, entries are never shared between keys. Writing a key whose slots are both taken
+ * replaces one of them, so the cache never grows past its capacity. Hits, misses and evictions are counted for
+ * {@link #logStatistics()}.
+ *
+ * @param <V> the type of the cached values.
+ */
+public class ConcurrentLongKeyedCache<V> {
+
+    private final String name;
+    private final AtomicReferenceArray<Entry<V>> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param name     the name of the cache in logged statistics.
+     * @param capacity the number of entries the cache holds, rounded up to a power of two.
+     */
+    public ConcurrentLongKeyedCache(String name, int capacity) {
+        if (capacity < 2 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30, got " + capacity);
+        this.name = name;
+        this.slots = new AtomicReferenceArray<>(Integer.highestOneBit(capacity - 1) << 1);
+        this.mask = this.slots.length() - 1;
+    }
+
+    /**
+     * Gets the value cached for the given key.
+     *
+     * @return the value, or null if none is cached.
+     */
+    public V get(long key) {
+        int slot = this.getSlot(key);
+        Entry<V> entry = this.slots.getAcquire(slot);
+        if (entry == null || entry.key != key) {
+            entry = this.slots.getAcquire(slot ^ 1);
+            if (entry == null || entry.key != key) {
+                this.misses.increment();
+                return null;
+            }
+        }
+        this.hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Caches a value for the given key, replacing any value already cached for it. If both slots the key may live in
+     * hold other keys one of them is evicted.
+     */
+    public void put(long key, V value) {
+        var entry = new Entry<>(key, value);
+        int slot = this.getSlot(key);
+        Entry<V> first = this.slots.getAcquire(slot);
+        if (first == null || first.key == key) {
+            this.slots.setRelease(slot, entry);
+            return;
+        }
+        Entry<V> second = this.slots.getAcquire(slot ^ 1);
+        if (second != null && second.key != key) {
+            // Both taken, evict the older of the pair by always writing the second and demoting it to the first.
+            this.slots.setRelease(slot, second);
+            this.evictions.increment();
+        }
+        this.slots.setRelease(slot ^ 1, entry);
+    }
+
+    public void invalidate(long key) {
+        int slot = this.getSlot(key);
+        for (int i : new int[]{slot, slot ^ 1}) {
+            Entry<V> entry = this.slots.getAcquire(i);
+            if (entry != null && entry.key == key)
+                this.slots.compareAndSet(i, entry, null);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < this.slots.length(); i++) {
+            this.slots.setRelease(i, null);
+        }
+    }
+
+    public int capacity() {
+        return this.slots.length();
+    }
+
+    /**
+     * Counts the entries in the cache, only exact while no other thread is writing to it.
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < this.slots.length(); i++) {
+            if (this.slots.getAcquire(i) != null)
+                size++;
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    public void logStatistics() {
+        long hits = this.hits.sum();
+        long lookups = hits + this.misses.sum();
+        if (lookups > 0) {
+            ArchitectureLog.info("{} served {} of {} lookups ({}% hit rate), evicted {}, holding {} of {}", this.name,
+                    hits, lookups, Math.round(100D * hits / lookups), this.evictions.sum(), this.size(), this.capacity());
+        }
+    }
+
+    private int getSlot(long key) {
+        // Keys are packed fields, mix them so neighbouring keys spread over the table.
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32) & this.mask;
+    }
+
+    private record Entry<V>(long key, V value) {
+    }
+}
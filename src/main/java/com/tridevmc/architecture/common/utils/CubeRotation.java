@@ -0,0 +1,213 @@
+package com.tridevmc.architecture.common.utils;
+
+import com.tridevmc.architecture.common.helpers.Matrix3;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.doubles.DoubleList;
+import net.minecraft.core.Direction;
+import net.minecraft.world.phys.shapes.ArrayVoxelShape;
+import net.minecraft.world.phys.shapes.BitSetDiscreteVoxelShape;
+import net.minecraft.world.phys.shapes.DiscreteVoxelShape;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+/**
+ * One of the 24 rotations of a cube onto itself, the rotations of {@link Matrix3#sideTurnRotations}.
+ * <p>
+ * Every such rotation takes each axis onto another axis, possibly reversed, so shapes and voxel grids are rotated exactly
+ * by permuting their cells and coordinate lists rather than sending each box through the matrix.
+ */
+public final class CubeRotation {
+
+    private static final Direction.Axis[] AXES = Direction.Axis.values();
+    private static final CubeRotation[] ROTATIONS = new CubeRotation[24];
+
+    static {
+        for (int side = 0; side < 6; side++) {
+            for (int turn = 0; turn < 4; turn++) {
+                int index = side * 4 + turn;
+                ROTATIONS[index] = new CubeRotation(index, Matrix3.sideTurnRotations[side][turn]);
+            }
+        }
+    }
+
+    private final int index;
+    private final Matrix3 matrix;
+    // For each axis of the result, the axis of the source it is taken from and whether it runs the other way.
+    private final int[] source = new int[3];
+    private final boolean[] reversed = new boolean[3];
+
+    private CubeRotation(int index, Matrix3 matrix) {
+        this.index = index;
+        this.matrix = matrix;
+        if (!getPermutation(matrix, this.source, this.reversed))
+            throw new IllegalArgumentException("Matrix " + matrix + " is not a rotation of the cube");
+    }
+
+    /**
+     * Gets the rotation applied to blocks placed against the given side with the given turn.
+     */
+    public static CubeRotation of(int side, int turn) {
+        return ROTATIONS[side * 4 + turn];
+    }
+
+    /**
+     * Gets a rotation by its index, see {@link #getIndex()}.
+     */
+    public static CubeRotation get(int index) {
+        return ROTATIONS[index];
+    }
+
+    /**
+     * Finds the rotation of the cube the given matrix performs, if any.
+     *
+     * @param matrix the matrix to match.
+     * @return the rotation, or null if the matrix does not map every axis onto another.
+     */
+    public static CubeRotation of(Matrix3 matrix) {
+        int[] source = new int[3];
+        boolean[] reversed = new boolean[3];
+        if (!getPermutation(matrix, source, reversed))
+            return null;
+        for (CubeRotation rotation : ROTATIONS) {
+            if (rotation.matches(source, reversed))
+                return rotation;
+        }
+        // A reflection, which no side and turn produce.
+        return null;
+    }
+
+    /**
+     * Gets the index of this rotation, side * 4 + turn, from 0 to 23.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    public Matrix3 getMatrix() {
+        return this.matrix;
+    }
+
+    /**
+     * Rotates a shape about the center of the block.
+     */
+    public VoxelShape rotate(VoxelShape shape) {
+        return this.transform(shape, this.reversed[0] ? 1 : 0, this.reversed[1] ? 1 : 0, this.reversed[2] ? 1 : 0);
+    }
+
+    /**
+     * Rotates a shape about the origin, then moves it by the given offset, the same as a {@link
+     * com.tridevmc.architecture.common.helpers.Trans3} with this rotation and offset.
+     *
+     * @param shape the shape to transform.
+     * @return the transformed shape.
+     */
+    public VoxelShape transform(VoxelShape shape, double dx, double dy, double dz) {
+        if (shape.isEmpty())
+            return Shapes.empty();
+        DiscreteVoxelShape discrete = shape.shape;
+        int[] size = {discrete.getXSize(), discrete.getYSize(), discrete.getZSize()};
+        var rotated = new BitSetDiscreteVoxelShape(size[this.source[0]], size[this.source[1]], size[this.source[2]]);
+        int[] cell = new int[3];
+        for (cell[0] = 0; cell[0] < size[0]; cell[0]++) {
+            for (cell[1] = 0; cell[1] < size[1]; cell[1]++) {
+                for (cell[2] = 0; cell[2] < size[2]; cell[2]++) {
+                    if (discrete.isFull(cell[0], cell[1], cell[2]))
+                        rotated.fill(this.rotateCell(cell, size, 0), this.rotateCell(cell, size, 1), this.rotateCell(cell, size, 2));
+                }
+            }
+        }
+        return new ArrayVoxelShape(rotated,
+                this.rotateCoords(shape, 0, dx),
+                this.rotateCoords(shape, 1, dy),
+                this.rotateCoords(shape, 2, dz));
+    }
+
+    /**
+     * Rotates a voxel grid about the center of the block.
+     *
+     * @param occupancy the grid to rotate.
+     * @return a new grid with every solid cell of the given grid rotated.
+     */
+    public VoxelOccupancy rotate(VoxelOccupancy occupancy) {
+        int resolution = occupancy.getResolution();
+        int[] min = {occupancy.getMin().getX(), occupancy.getMin().getY(), occupancy.getMin().getZ()};
+        int[] max = {occupancy.getMax().getX(), occupancy.getMax().getY(), occupancy.getMax().getZ()};
+        int[] rotatedMin = new int[3];
+        for (int axis = 0; axis < 3; axis++) {
+            int from = this.source[axis];
+            rotatedMin[axis] = this.reversed[axis] ? resolution - max[from] : min[from];
+        }
+        var rotated = new VoxelOccupancy(resolution, rotatedMin[0], rotatedMin[1], rotatedMin[2],
+                max[this.source[0]] - min[this.source[0]],
+                max[this.source[1]] - min[this.source[1]],
+                max[this.source[2]] - min[this.source[2]]);
+        int[] cell = new int[3];
+        for (cell[0] = min[0]; cell[0] < max[0]; cell[0]++) {
+            for (cell[1] = min[1]; cell[1] < max[1]; cell[1]++) {
+                for (cell[2] = min[2]; cell[2] < max[2]; cell[2]++) {
+                    if (occupancy.get(cell[0], cell[1], cell[2]))
+                        rotated.set(this.rotateGridCell(cell, resolution, 0), this.rotateGridCell(cell, resolution, 1),
+                                this.rotateGridCell(cell, resolution, 2));
+                }
+            }
+        }
+        return rotated;
+    }
+
+    private int rotateCell(int[] cell, int[] size, int axis) {
+        int from = this.source[axis];
+        return this.reversed[axis] ? size[from] - 1 - cell[from] : cell[from];
+    }
+
+    private int rotateGridCell(int[] cell, int resolution, int axis) {
+        int from = this.source[axis];
+        return this.reversed[axis] ? resolution - 1 - cell[from] : cell[from];
+    }
+
+    private DoubleList rotateCoords(VoxelShape shape, int axis, double offset) {
+        DoubleList coords = shape.getCoords(AXES[this.source[axis]]);
+        double[] rotated = new double[coords.size()];
+        for (int i = 0; i < rotated.length; i++) {
+            rotated[i] = this.reversed[axis]
+                    ? offset - coords.getDouble(rotated.length - 1 - i)
+                    : offset + coords.getDouble(i);
+        }
+        return DoubleArrayList.wrap(rotated);
+    }
+
+    private boolean matches(int[] source, boolean[] reversed) {
+        for (int axis = 0; axis < 3; axis++) {
+            if (this.source[axis] != source[axis] || this.reversed[axis] != reversed[axis])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the signed permutation of axes a matrix performs, allowing for the rounding error of the trigonometry the
+     * rotations are built with.
+     *
+     * @return true if every row and column of the matrix has a single entry of 1 or -1 and zeroes elsewhere.
+     */
+    private static boolean getPermutation(Matrix3 matrix, int[] source, boolean[] reversed) {
+        int used = 0;
+        for (int row = 0; row < 3; row++) {
+            source[row] = -1;
+            for (int column = 0; column < 3; column++) {
+                double value = matrix.m[row][column];
+                if (Math.abs(Math.abs(value) - 1) < 1.0E-6) {
+                    if (source[row] != -1)
+                        return false;
+                    source[row] = column;
+                    reversed[row] = value < 0;
+                } else if (Math.abs(value) >= 1.0E-6) {
+                    return false;
+                }
+            }
+            if (source[row] == -1 || (used & 1 << source[row]) != 0)
+                return false;
+            used |= 1 << source[row];
+        }
+        return true;
+    }
+}
@@ -0,0 +1,180 @@
+package com.tridevmc.architecture.common.utils;
+
+/**
+ * Approximates the generalized winding number of a triangle soup, following "Fast Winding Numbers for Soups and Clouds"
+ * by Barill et al., https://www.dgp.toronto.edu/projects/fast-winding-numbers/
+ * <p>
+ * Each node of a {@link BVH} over the triangles stores the sum of its area weighted normals as a dipole at its area
+ * weighted centroid. Queries use the dipole of any node far enough away from the point and only sum the exact solid
+ * angle of nearby triangles, so they take roughly logarithmic time. Points inside a closed mesh wind once, points
+ * outside wind zero times, and the number degrades gracefully around holes.
+ */
+public class FastWindingNumber {
+
+    /**
+     * How many times further than its radius a node has to be before its dipole is used, 2 as recommended by the paper.
+     */
+    private static final double ACCURACY = 2D;
+    private static final double FOUR_PI = 4D * Math.PI;
+
+    private final BVH bvh;
+    private final double[] triangles;
+    // 3 doubles per node, the area weighted centroid and then the sum of area weighted normals.
+    private final double[] nodeCenters;
+    private final double[] nodeNormals;
+    private final double[] nodeRadii;
+
+    /**
+     * Precomputes the dipole of every node of the given hierarchy.
+     *
+     * @param bvh       a hierarchy built over the bounds of the triangles.
+     * @param triangles 9 doubles per triangle, xyz of each vertex in counterclockwise order seen from outside.
+     */
+    public FastWindingNumber(BVH bvh, double[] triangles) {
+        this.bvh = bvh;
+        this.triangles = triangles;
+        int nodes = bvh.getNodeCount();
+        this.nodeCenters = new double[nodes * 3];
+        this.nodeNormals = new double[nodes * 3];
+        this.nodeRadii = new double[nodes];
+
+        // Children always come after their parent, so walking backwards visits them first.
+        double[] areas = new double[nodes];
+        int[] starts = new int[nodes];
+        int[] ends = new int[nodes];
+        for (int node = nodes - 1; node >= 0; node--) {
+            int count = bvh.getLeafCount(node);
+            if (count == 0) {
+                this.combineChildren(node, node + 1, bvh.getRightChild(node), areas);
+                starts[node] = starts[node + 1];
+                ends[node] = ends[bvh.getRightChild(node)];
+            } else {
+                starts[node] = bvh.getLeafStart(node);
+                ends[node] = starts[node] + count;
+                this.computeLeaf(node, starts[node], ends[node], areas);
+            }
+            this.nodeRadii[node] = this.getRadius(node, starts[node], ends[node]);
+        }
+    }
+
+    /**
+     * Gets the winding number of the triangles around the given point.
+     *
+     * @return about 1 for points inside the mesh and about 0 for points outside it.
+     */
+    public double getWindingNumber(double x, double y, double z) {
+        if (this.triangles.length == 0)
+            return 0;
+        double solidAngle = 0;
+        int[] stack = new int[this.bvh.getMaxDepth() + 2];
+        int size = 0;
+        stack[size++] = 0;
+        while (size > 0) {
+            int node = stack[--size];
+            double dx = this.nodeCenters[node * 3] - x;
+            double dy = this.nodeCenters[node * 3 + 1] - y;
+            double dz = this.nodeCenters[node * 3 + 2] - z;
+            double distanceSqr = dx * dx + dy * dy + dz * dz;
+            double radius = this.nodeRadii[node] * ACCURACY;
+            if (distanceSqr > radius * radius) {
+                // Far enough away that the node is indistinguishable from its dipole.
+                double distance = Math.sqrt(distanceSqr);
+                solidAngle += (dx * this.nodeNormals[node * 3] + dy * this.nodeNormals[node * 3 + 1] + dz * this.nodeNormals[node * 3 + 2])
+                        / (distanceSqr * distance);
+                continue;
+            }
+            int count = this.bvh.getLeafCount(node);
+            if (count == 0) {
+                stack[size++] = this.bvh.getRightChild(node);
+                stack[size++] = node + 1;
+            } else {
+                for (int i = 0; i < count; i++) {
+                    solidAngle += this.getSolidAngle(this.bvh.getPrimitiveAt(this.bvh.getLeafStart(node) + i), x, y, z);
+                }
+            }
+        }
+        return solidAngle / FOUR_PI;
+    }
+
+    /**
+     * Gets the exact signed solid angle of a triangle seen from a point, from Van Oosterom and Strackee.
+     */
+    private double getSolidAngle(int triangle, double x, double y, double z) {
+        int o = triangle * 9;
+        double ax = this.triangles[o] - x, ay = this.triangles[o + 1] - y, az = this.triangles[o + 2] - z;
+        double bx = this.triangles[o + 3] - x, by = this.triangles[o + 4] - y, bz = this.triangles[o + 5] - z;
+        double cx = this.triangles[o + 6] - x, cy = this.triangles[o + 7] - y, cz = this.triangles[o + 8] - z;
+        double la = Math.sqrt(ax * ax + ay * ay + az * az);
+        double lb = Math.sqrt(bx * bx + by * by + bz * bz);
+        double lc = Math.sqrt(cx * cx + cy * cy + cz * cz);
+        double det = ax * (by * cz - bz * cy) + ay * (bz * cx - bx * cz) + az * (bx * cy - by * cx);
+        double div = la * lb * lc + (ax * bx + ay * by + az * bz) * lc + (bx * cx + by * cy + bz * cz) * la + (cx * ax + cy * ay + cz * az) * lb;
+        return 2D * Math.atan2(det, div);
+    }
+
+    private void computeLeaf(int node, int start, int end, double[] areas) {
+        double area = 0, cx = 0, cy = 0, cz = 0, nx = 0, ny = 0, nz = 0;
+        for (int i = start; i < end; i++) {
+            int o = this.bvh.getPrimitiveAt(i) * 9;
+            double[] t = this.triangles;
+            double e1x = t[o + 3] - t[o], e1y = t[o + 4] - t[o + 1], e1z = t[o + 5] - t[o + 2];
+            double e2x = t[o + 6] - t[o], e2y = t[o + 7] - t[o + 1], e2z = t[o + 8] - t[o + 2];
+            // Half the cross product, a normal with the length of the area of the triangle.
+            double tx = (e1y * e2z - e1z * e2y) * 0.5D;
+            double ty = (e1z * e2x - e1x * e2z) * 0.5D;
+            double tz = (e1x * e2y - e1y * e2x) * 0.5D;
+            double triArea = Math.sqrt(tx * tx + ty * ty + tz * tz);
+            nx += tx;
+            ny += ty;
+            nz += tz;
+            area += triArea;
+            cx += triArea * (t[o] + t[o + 3] + t[o + 6]) / 3D;
+            cy += triArea * (t[o + 1] + t[o + 4] + t[o + 7]) / 3D;
+            cz += triArea * (t[o + 2] + t[o + 5] + t[o + 8]) / 3D;
+        }
+        if (area > 0) {
+            this.setCenter(node, cx / area, cy / area, cz / area);
+        } else {
+            int o = this.bvh.getPrimitiveAt(start) * 9;
+            this.setCenter(node, this.triangles[o], this.triangles[o + 1], this.triangles[o + 2]);
+        }
+        this.nodeNormals[node * 3] = nx;
+        this.nodeNormals[node * 3 + 1] = ny;
+        this.nodeNormals[node * 3 + 2] = nz;
+        areas[node] = area;
+    }
+
+    private void combineChildren(int node, int left, int right, double[] areas) {
+        double area = areas[left] + areas[right];
+        double leftWeight = area > 0 ? areas[left] / area : 0.5D;
+        for (int axis = 0; axis < 3; axis++) {
+            this.nodeCenters[node * 3 + axis] = this.nodeCenters[left * 3 + axis] * leftWeight + this.nodeCenters[right * 3 + axis] * (1 - leftWeight);
+            this.nodeNormals[node * 3 + axis] = this.nodeNormals[left * 3 + axis] + this.nodeNormals[right * 3 + axis];
+        }
+        areas[node] = area;
+    }
+
+    /**
+     * Gets the distance from the center of a node to its furthest vertex, the tighter this is the sooner queries can
+     * use the dipole of the node.
+     */
+    private double getRadius(int node, int start, int end) {
+        double radiusSqr = 0;
+        for (int i = start; i < end; i++) {
+            int o = this.bvh.getPrimitiveAt(i) * 9;
+            for (int v = 0; v < 9; v += 3) {
+                double dx = this.triangles[o + v] - this.nodeCenters[node * 3];
+                double dy = this.triangles[o + v + 1] - this.nodeCenters[node * 3 + 1];
+                double dz = this.triangles[o + v + 2] - this.nodeCenters[node * 3 + 2];
+                radiusSqr = Math.max(radiusSqr, dx * dx + dy * dy + dz * dz);
+            }
+        }
+        return Math.sqrt(radiusSqr);
+    }
+
+    private void setCenter(int node, double x, double y, double z) {
+        this.nodeCenters[node * 3] = x;
+        this.nodeCenters[node * 3 + 1] = y;
+        this.nodeCenters[node * 3 + 2] = z;
+    }
+}
@@ -0,0 +1,66 @@
+package com.tridevmc.architecture.common.utils;
+
+import com.tridevmc.architecture.common.ArchitectureLog;
+
+/**
+ * Tests one box on the lattice against a run of triangles in a {@link LatticeTriangleBatch} at once, giving exactly the
+ * same result as {@link LatticePredicates#intersects} would for each of them.
+ * <p>
+ * The only implementation uses the incubating Vector API, it is only compiled when Gradle is run with
+ * <code>-PvectorKernel</code> and only used when the game is run with <code>--add-modules jdk.incubator.vector</code>.
+ * Setting the system property <code>architecturecraft.vectorKernel</code> to false disables it at runtime. Without it
+ * the voxelizer tests one triangle at a time with {@link LatticePredicates}.
+ */
+public interface LatticeBatchKernel {
+
+    String PROPERTY = "architecturecraft.vectorKernel";
+    String IMPLEMENTATION = "com.tridevmc.architecture.common.utils.VectorLatticeBatchKernel";
+
+    /**
+     * Determines if any of the given triangles intersects the given closed box, touching counts as intersecting. Every
+     * coordinate of the triangles and the box must be within {@link LatticeTriangleBatch#MAX_EXACT_COORDINATE}.
+     *
+     * @param batch the triangles to test.
+     * @param from  the index of the first triangle to test.
+     * @param to    the index after the last triangle to test.
+     * @return true if any triangle intersects or touches the box, false otherwise.
+     */
+    boolean intersectsAny(LatticeTriangleBatch batch, int from, int to, long minX, long minY, long minZ, long maxX, long maxY, long maxZ);
+
+    /**
+     * Gets the number of triangles the kernel tests per instruction.
+     */
+    int getLanes();
+
+    /**
+     * Gets the batch kernel, if one was compiled in, the runtime supports it and it hasn't been disabled.
+     *
+     * @return the kernel, or null if triangles should be tested one at a time.
+     */
+    static LatticeBatchKernel get() {
+        if (!Boolean.parseBoolean(System.getProperty(PROPERTY, "true")))
+            return null;
+        return Holder.KERNEL;
+    }
+
+    final class Holder {
+        private static final LatticeBatchKernel KERNEL = load();
+
+        private Holder() {
+        }
+
+        private static LatticeBatchKernel load() {
+            try {
+                var kernel = (LatticeBatchKernel) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+                ArchitectureLog.info("Voxelizing with the vector kernel, {} triangles per instruction", kernel.getLanes());
+                return kernel;
+            } catch (ClassNotFoundException e) {
+                // Not compiled in.
+                return null;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                ArchitectureLog.info("Vector kernel is unavailable, add jdk.incubator.vector to the modules of the JVM to use it");
+                return null;
+            }
+        }
+    }
+}
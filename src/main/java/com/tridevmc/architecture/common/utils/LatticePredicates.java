@@ -0,0 +1,192 @@
+package com.tridevmc.architecture.common.utils;
+
+/**
+ * Exact geometric predicates on a fixed point lattice of {@link #LATTICE} points per block.
+ * <p>
+ * Coordinates are snapped to the lattice once, then every predicate is evaluated with long arithmetic, so results never
+ * depend on rounding, the order operations run in or where a model sits.
+ * <p>
+ * Every coordinate given to a predicate, triangle vertices and box bounds alike, must lie within
+ * {@link #MAX_COORDINATE}. {@link #snap} guarantees it for anything snapped, and with it the largest intermediate
+ * value, the dot product of a vertex with the triangle normal in {@link #intersects}, stays below 3 * 2^61. Nothing
+ * bounds coordinates that are not, a box far outside the lattice overflows, so the predicates assert it. Comparisons
+ * that need more than 64 bits use exact 128 bit products.
+ */
+public final class LatticePredicates {
+
+    /**
+     * The number of lattice points per block.
+     */
+    public static final int LATTICE = 4096;
+
+    /**
+     * The largest magnitude of a coordinate on the lattice, 64 blocks.
+     */
+    public static final long MAX_COORDINATE = 1L << 18;
+
+    private LatticePredicates() {
+    }
+
+    /**
+     * Snaps a coordinate to the nearest point of the lattice.
+     *
+     * @param value the coordinate, in blocks.
+     * @return the coordinate, in lattice units.
+     * @throws IllegalArgumentException if the coordinate lies outside the range of the lattice.
+     */
+    public static long snap(double value) {
+        long snapped = Math.round(value * LATTICE);
+        if (!(Math.abs(value * LATTICE) <= MAX_COORDINATE))
+            throw new IllegalArgumentException("Coordinate " + value + " is outside of the lattice");
+        return snapped;
+    }
+
+    /**
+     * Determines if the given triangle intersects the given closed box, touching counts as intersecting.
+     * <p>
+     * The separating axis test of Akenine-Moller, evaluated exactly. The box is moved to the origin at twice the scale
+     * so its center and half size stay on the lattice.
+     *
+     * @param v    the vertices of the triangle, as {x0, y0, z0, x1, y1, z1, x2, y2, z2} in lattice units.
+     * @param minX the minimum x coordinate of the box, in lattice units.
+     * @param minY the minimum y coordinate of the box.
+     * @param minZ the minimum z coordinate of the box.
+     * @param maxX the maximum x coordinate of the box.
+     * @param maxY the maximum y coordinate of the box.
+     * @param maxZ the maximum z coordinate of the box.
+     * @return true if the triangle and box intersect or touch, false otherwise.
+     */
+    public static boolean intersects(long[] v, long minX, long minY, long minZ, long maxX, long maxY, long maxZ) {
+        assert isOnLattice(v) && isOnLattice(minX, minY, minZ, maxX, maxY, maxZ) : "Box is outside of the lattice";
+        long cx = minX + maxX, cy = minY + maxY, cz = minZ + maxZ;
+        long hx = maxX - minX, hy = maxY - minY, hz = maxZ - minZ;
+        long v0x = 2 * v[0] - cx, v0y = 2 * v[1] - cy, v0z = 2 * v[2] - cz;
+        long v1x = 2 * v[3] - cx, v1y = 2 * v[4] - cy, v1z = 2 * v[5] - cz;
+        long v2x = 2 * v[6] - cx, v2y = 2 * v[7] - cy, v2z = 2 * v[8] - cz;
+
+        // Box normals.
+        if (isSeparated(v0x, v1x, v2x, hx)
+                || isSeparated(v0y, v1y, v2y, hy)
+                || isSeparated(v0z, v1z, v2z, hz))
+            return false;
+
+        long l0x = v1x - v0x, l0y = v1y - v0y, l0z = v1z - v0z;
+        long l1x = v2x - v1x, l1y = v2y - v1y, l1z = v2z - v1z;
+        long l2x = v0x - v2x, l2y = v0y - v2y, l2z = v0z - v2z;
+
+        // Triangle normal.
+        long nx = l0y * l1z - l0z * l1y;
+        long ny = l0z * l1x - l0x * l1z;
+        long nz = l0x * l1y - l0y * l1x;
+        if (isSeparated(
+                v0x * nx + v0y * ny + v0z * nz,
+                v1x * nx + v1y * ny + v1z * nz,
+                v2x * nx + v2y * ny + v2z * nz,
+                hx * Math.abs(nx) + hy * Math.abs(ny) + hz * Math.abs(nz)))
+            return false;
+
+        // X axis crossed with each edge, (0, -lz, ly).
+        if (isSeparated(v0y * -l0z + v0z * l0y, v1y * -l0z + v1z * l0y, v2y * -l0z + v2z * l0y, hy * Math.abs(l0z) + hz * Math.abs(l0y))
+                || isSeparated(v0y * -l1z + v0z * l1y, v1y * -l1z + v1z * l1y, v2y * -l1z + v2z * l1y, hy * Math.abs(l1z) + hz * Math.abs(l1y))
+                || isSeparated(v0y * -l2z + v0z * l2y, v1y * -l2z + v1z * l2y, v2y * -l2z + v2z * l2y, hy * Math.abs(l2z) + hz * Math.abs(l2y)))
+            return false;
+
+        // Y axis crossed with each edge, (lz, 0, -lx).
+        if (isSeparated(v0x * l0z + v0z * -l0x, v1x * l0z + v1z * -l0x, v2x * l0z + v2z * -l0x, hx * Math.abs(l0z) + hz * Math.abs(l0x))
+                || isSeparated(v0x * l1z + v0z * -l1x, v1x * l1z + v1z * -l1x, v2x * l1z + v2z * -l1x, hx * Math.abs(l1z) + hz * Math.abs(l1x))
+                || isSeparated(v0x * l2z + v0z * -l2x, v1x * l2z + v1z * -l2x, v2x * l2z + v2z * -l2x, hx * Math.abs(l2z) + hz * Math.abs(l2x)))
+            return false;
+
+        // Z axis crossed with each edge, (-ly, lx, 0).
+        return !(isSeparated(v0x * -l0y + v0y * l0x, v1x * -l0y + v1y * l0x, v2x * -l0y + v2y * l0x, hx * Math.abs(l0y) + hy * Math.abs(l0x))
+                || isSeparated(v0x * -l1y + v0y * l1x, v1x * -l1y + v1y * l1x, v2x * -l1y + v2y * l1x, hx * Math.abs(l1y) + hy * Math.abs(l1x))
+                || isSeparated(v0x * -l2y + v0y * l2x, v1x * -l2y + v1y * l2x, v2x * -l2y + v2y * l2x, hx * Math.abs(l2y) + hy * Math.abs(l2x)));
+    }
+
+    /**
+     * Finds where the line parallel to the X axis through the given point crosses the given triangle, edges and
+     * vertices included. The crossing is the rational x coordinate <code>out[0] / out[1]</code>, with a positive
+     * denominator.
+     *
+     * @param v   the vertices of the triangle, as {x0, y0, z0, x1, y1, z1, x2, y2, z2} in lattice units.
+     * @param y   the y coordinate of the line, in lattice units.
+     * @param z   the z coordinate of the line, in lattice units.
+     * @param out given the numerator and denominator of the crossing, if there is one.
+     * @return true if the line crosses the triangle, false if it misses it or the triangle is parallel to it.
+     */
+    public static boolean crossesLineX(long[] v, long y, long z, long[] out) {
+        assert isOnLattice(v) && isOnLattice(y, z) : "Line is outside of the lattice";
+        long a0y = v[1] - y, a0z = v[2] - z;
+        long a1y = v[4] - y, a1z = v[5] - z;
+        long a2y = v[7] - y, a2z = v[8] - z;
+        // Barycentric weights of the line in the plane of the triangle projected along X.
+        long w0 = a1y * a2z - a1z * a2y;
+        long w1 = a2y * a0z - a2z * a0y;
+        long w2 = a0y * a1z - a0z * a1y;
+        if ((w0 < 0 || w1 < 0 || w2 < 0) && (w0 > 0 || w1 > 0 || w2 > 0))
+            return false;
+        long w = w0 + w1 + w2;
+        if (w == 0)
+            return false;
+        long numerator = w0 * v[0] + w1 * v[3] + w2 * v[6];
+        out[0] = w > 0 ? numerator : -numerator;
+        out[1] = Math.abs(w);
+        return true;
+    }
+
+    /**
+     * Determines if the front of the given triangle faces the given point, the front is the side its vertices wind
+     * clockwise around when seen from.
+     *
+     * @param v the vertices of the triangle, as {x0, y0, z0, x1, y1, z1, x2, y2, z2} in lattice units.
+     * @return true if the point lies strictly in front of the plane of the triangle, false otherwise.
+     */
+    public static boolean isFacing(long[] v, long x, long y, long z) {
+        assert isOnLattice(v) && isOnLattice(x, y, z) : "Point is outside of the lattice";
+        long e1x = v[3] - v[0], e1y = v[4] - v[1], e1z = v[5] - v[2];
+        long e2x = v[6] - v[0], e2y = v[7] - v[1], e2z = v[8] - v[2];
+        long nx = e1y * e2z - e1z * e2y;
+        long ny = e1z * e2x - e1x * e2z;
+        long nz = e1x * e2y - e1y * e2x;
+        return nx * (x - v[0]) + ny * (y - v[1]) + nz * (z - v[2]) < 0;
+    }
+
+    /**
+     * Compares the products a * b and c * d exactly, without overflowing.
+     *
+     * @return a negative number, zero or a positive number as a * b is less than, equal to or greater than c * d.
+     */
+    public static int compareProducts(long a, long b, long c, long d) {
+        long high = Math.multiplyHigh(a, b), otherHigh = Math.multiplyHigh(c, d);
+        if (high != otherHigh)
+            return Long.compare(high, otherHigh);
+        return Long.compareUnsigned(a * b, c * d);
+    }
+
+    /**
+     * Compares the fractions a / b and c / d exactly, both denominators must be positive.
+     *
+     * @return a negative number, zero or a positive number as a / b is less than, equal to or greater than c / d.
+     */
+    public static int compareFractions(long a, long b, long c, long d) {
+        return compareProducts(a, d, c, b);
+    }
+
+    /**
+     * Determines if every given coordinate lies within {@link #MAX_COORDINATE}, only checked by assertions.
+     */
+    private static boolean isOnLattice(long... coordinates) {
+        for (long coordinate : coordinates) {
+            if (Math.abs(coordinate) > MAX_COORDINATE)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determines if the projections of a triangle onto an axis lie entirely outside of the projected radius of the box.
+     */
+    private static boolean isSeparated(long p0, long p1, long p2, long r) {
+        return Math.max(-Math.max(p0, Math.max(p1, p2)), Math.min(p0, Math.min(p1, p2))) > r;
+    }
+}
@@ -0,0 +1,68 @@
+package com.tridevmc.architecture.common.utils;
+
+import java.util.Arrays;
+
+/**
+ * Triangles on the lattice of {@link LatticePredicates} stored as a structure of arrays, one array per vertex coordinate,
+ * so a {@link LatticeBatchKernel} can load the same coordinate of several triangles at once.
+ * <p>
+ * Coordinates are held in doubles, which represent them and every product the intersection test takes of them exactly
+ * as long as no coordinate exceeds {@link #MAX_EXACT_COORDINATE}.
+ */
+public final class LatticeTriangleBatch {
+
+    /**
+     * The largest magnitude of a coordinate that is tested exactly, 4 blocks.
+     */
+    public static final long MAX_EXACT_COORDINATE = 1L << 14;
+
+    // Extra room at the end of each array, so kernels can load whole vectors past the last triangle.
+    private static final int PADDING = 64;
+
+    private final double[][] coordinates = new double[9][];
+    private int size;
+
+    public LatticeTriangleBatch(int capacity) {
+        for (int i = 0; i < this.coordinates.length; i++) {
+            this.coordinates[i] = new double[capacity + PADDING];
+        }
+    }
+
+    /**
+     * Removes every triangle from the batch, keeping its storage.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Adds a triangle to the end of the batch.
+     *
+     * @param v the vertices of the triangle, as {x0, y0, z0, x1, y1, z1, x2, y2, z2} in lattice units.
+     * @return the index of the triangle in the batch.
+     */
+    public int add(long[] v) {
+        if (this.size + PADDING == this.coordinates[0].length) {
+            for (int i = 0; i < this.coordinates.length; i++) {
+                this.coordinates[i] = Arrays.copyOf(this.coordinates[i], this.size * 2 + PADDING);
+            }
+        }
+        for (int i = 0; i < this.coordinates.length; i++) {
+            this.coordinates[i][this.size] = v[i];
+        }
+        return this.size++;
+    }
+
+    /**
+     * Gets the given coordinate of every triangle in the batch, indexed by triangle.
+     *
+     * @param coordinate the coordinate, in the order {x0, y0, z0, x1, y1, z1, x2, y2, z2}.
+     */
+    public double[] getCoordinates(int coordinate) {
+        return this.coordinates[coordinate];
+    }
+
+    public int size() {
+        return this.size;
+    }
+}
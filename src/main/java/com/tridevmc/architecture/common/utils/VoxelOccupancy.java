@@ -0,0 +1,261 @@
+package com.tridevmc.architecture.common.utils;
+
+import net.minecraft.core.Vec3i;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.BitSetDiscreteVoxelShape;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bitset of solid voxels in a grid of <code>resolution</code> cells per block.
+ * <p>
+ * Cells are addressed by their absolute grid coordinates, so a cell at (x, y, z) covers x/resolution to (x+1)/resolution
+ * and so on, the grid itself only spans from the given min (inclusive) to max (exclusive).
+ */
+public class VoxelOccupancy {
+
+    private final int resolution;
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final long[] bits;
+
+    public VoxelOccupancy(int resolution, Vec3i min, Vec3i max) {
+        this(resolution, min.getX(), min.getY(), min.getZ(),
+                Math.max(0, max.getX() - min.getX()),
+                Math.max(0, max.getY() - min.getY()),
+                Math.max(0, max.getZ() - min.getZ()));
+    }
+
+    public VoxelOccupancy(int resolution, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        this(resolution, minX, minY, minZ, sizeX, sizeY, sizeZ, new long[(sizeX * sizeY * sizeZ + 63) >> 6]);
+    }
+
+    private VoxelOccupancy(int resolution, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, long[] bits) {
+        this.resolution = resolution;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.bits = bits;
+    }
+
+    /**
+     * Reads an occupancy grid previously written with {@link #write(DataOutputStream)}.
+     *
+     * @param buf the buffer to read from.
+     * @return the occupancy grid.
+     */
+    public static VoxelOccupancy read(ByteBuffer buf) {
+        int resolution = buf.getInt();
+        int minX = buf.getInt(), minY = buf.getInt(), minZ = buf.getInt();
+        int sizeX = buf.getInt(), sizeY = buf.getInt(), sizeZ = buf.getInt();
+        long[] bits = new long[buf.getInt()];
+        if (bits.length != (sizeX * sizeY * sizeZ + 63) >> 6)
+            throw new IllegalArgumentException("Occupancy size does not match its dimensions");
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = buf.getLong();
+        }
+        return new VoxelOccupancy(resolution, minX, minY, minZ, sizeX, sizeY, sizeZ, bits);
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(this.resolution);
+        out.writeInt(this.minX);
+        out.writeInt(this.minY);
+        out.writeInt(this.minZ);
+        out.writeInt(this.sizeX);
+        out.writeInt(this.sizeY);
+        out.writeInt(this.sizeZ);
+        out.writeInt(this.bits.length);
+        for (long word : this.bits) {
+            out.writeLong(word);
+        }
+    }
+
+    public boolean get(int x, int y, int z) {
+        if (!this.contains(x, y, z))
+            return false;
+        int i = this.index(x, y, z);
+        return (this.bits[i >> 6] & (1L << i)) != 0;
+    }
+
+    public void set(int x, int y, int z) {
+        int i = this.index(x, y, z);
+        this.bits[i >> 6] |= 1L << i;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= this.minX && y >= this.minY && z >= this.minZ
+                && x < this.minX + this.sizeX && y < this.minY + this.sizeY && z < this.minZ + this.sizeZ;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : this.bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        for (long word : this.bits) {
+            if (word != 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the box covered by every solid cell in the grid.
+     *
+     * @return a list containing a box for each solid cell.
+     */
+    public List<AABB> toBoxes() {
+        List<AABB> out = new ArrayList<>(this.cardinality());
+        double scale = 1D / this.resolution;
+        for (int x = this.minX; x < this.minX + this.sizeX; x++) {
+            for (int y = this.minY; y < this.minY + this.sizeY; y++) {
+                for (int z = this.minZ; z < this.minZ + this.sizeZ; z++) {
+                    if (this.get(x, y, z)) {
+                        out.add(new AABB(x * scale, y * scale, z * scale, (x + 1) * scale, (y + 1) * scale, (z + 1) * scale));
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Greedily merges the solid cells of the grid into cuboids, each cell is grown along z, then y, then x for as long as
+     * every cell it would cover is solid and not already claimed by an earlier cuboid.
+     * <p>
+     * This is not guaranteed to find the fewest possible cuboids, but is close for the shapes we produce and far smaller
+     * than {@link #toBoxes()}.
+     *
+     * @return a list of disjoint boxes covering exactly the solid cells.
+     */
+    public List<AABB> toMergedBoxes() {
+        List<AABB> out = new ArrayList<>();
+        long[] remaining = this.bits.clone();
+        double scale = 1D / this.resolution;
+        for (int x = 0; x < this.sizeX; x++) {
+            for (int y = 0; y < this.sizeY; y++) {
+                for (int z = 0; z < this.sizeZ; z++) {
+                    if (!isSet(remaining, this.localIndex(x, y, z)))
+                        continue;
+
+                    int z1 = z + 1;
+                    while (z1 < this.sizeZ && isSet(remaining, this.localIndex(x, y, z1)))
+                        z1++;
+                    int y1 = y + 1;
+                    while (y1 < this.sizeY && this.isRunSet(remaining, x, y1, z, z1))
+                        y1++;
+                    int x1 = x + 1;
+                    while (x1 < this.sizeX && this.isFaceSet(remaining, x1, y, y1, z, z1))
+                        x1++;
+
+                    for (int cx = x; cx < x1; cx++) {
+                        for (int cy = y; cy < y1; cy++) {
+                            for (int cz = z; cz < z1; cz++) {
+                                int i = this.localIndex(cx, cy, cz);
+                                remaining[i >> 6] &= ~(1L << i);
+                            }
+                        }
+                    }
+                    out.add(new AABB((this.minX + x) * scale, (this.minY + y) * scale, (this.minZ + z) * scale,
+                            (this.minX + x1) * scale, (this.minY + y1) * scale, (this.minZ + z1) * scale));
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Creates a shape covering the solid cells, built directly from the bitset rather than by joining a shape per cell.
+     *
+     * @return the shape of the solid cells.
+     */
+    public VoxelShape toVoxelShape() {
+        var discrete = new BitSetDiscreteVoxelShape(this.sizeX, this.sizeY, this.sizeZ);
+        for (int x = 0; x < this.sizeX; x++) {
+            for (int y = 0; y < this.sizeY; y++) {
+                for (int z = 0; z < this.sizeZ; z++) {
+                    if (isSet(this.bits, this.localIndex(x, y, z)))
+                        discrete.fill(x, y, z);
+                }
+            }
+        }
+        return VoxelShapeUtils.fromGrid(discrete, this.minX, this.minY, this.minZ, 1D / this.resolution);
+    }
+
+    public int getResolution() {
+        return this.resolution;
+    }
+
+    public Vec3i getMin() {
+        return new Vec3i(this.minX, this.minY, this.minZ);
+    }
+
+    public Vec3i getMax() {
+        return new Vec3i(this.minX + this.sizeX, this.minY + this.sizeY, this.minZ + this.sizeZ);
+    }
+
+    private int index(int x, int y, int z) {
+        return this.localIndex(x - this.minX, y - this.minY, z - this.minZ);
+    }
+
+    private int localIndex(int x, int y, int z) {
+        return (x * this.sizeY + y) * this.sizeZ + z;
+    }
+
+    private boolean isRunSet(long[] bits, int x, int y, int z0, int z1) {
+        for (int z = z0; z < z1; z++) {
+            if (!isSet(bits, this.localIndex(x, y, z)))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isFaceSet(long[] bits, int x, int y0, int y1, int z0, int z1) {
+        for (int y = y0; y < y1; y++) {
+            if (!this.isRunSet(bits, x, y, z0, z1))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isSet(long[] bits, int i) {
+        return (bits[i >> 6] & (1L << i)) != 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof VoxelOccupancy that)) return false;
+        return this.resolution == that.resolution &&
+                this.minX == that.minX && this.minY == that.minY && this.minZ == that.minZ &&
+                this.sizeX == that.sizeX && this.sizeY == that.sizeY && this.sizeZ == that.sizeZ &&
+                Arrays.equals(this.bits, that.bits);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = this.resolution;
+        result = 31 * result + this.minX;
+        result = 31 * result + this.minY;
+        result = 31 * result + this.minZ;
+        result = 31 * result + this.sizeX;
+        result = 31 * result + this.sizeY;
+        result = 31 * result + this.sizeZ;
+        result = 31 * result + Arrays.hashCode(this.bits);
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+package com.tridevmc.architecture.common.utils;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.ArrayVoxelShape;
+import net.minecraft.world.phys.shapes.BitSetDiscreteVoxelShape;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Builds voxel shapes directly from their discrete form, rather than joining a shape per box together one at a time.
+ */
+public class VoxelShapeUtils {
+
+    // Coordinates closer than this are treated as the same, matching the tolerance of Minecraft's shape merging.
+    private static final double EPSILON = 1.0E-7;
+
+    /**
+     * Creates a shape covering the union of the given boxes in a single pass.
+     *
+     * @param boxes the boxes to cover.
+     * @return a shape covering every box, or an empty shape if there are none.
+     */
+    public static VoxelShape fromBoxes(Collection<AABB> boxes) {
+        if (boxes.isEmpty())
+            return Shapes.empty();
+
+        double[] xs = new double[boxes.size() * 2];
+        double[] ys = new double[boxes.size() * 2];
+        double[] zs = new double[boxes.size() * 2];
+        int i = 0;
+        for (AABB box : boxes) {
+            xs[i] = box.minX;
+            ys[i] = box.minY;
+            zs[i++] = box.minZ;
+            xs[i] = box.maxX;
+            ys[i] = box.maxY;
+            zs[i++] = box.maxZ;
+        }
+        xs = uniqueSorted(xs);
+        ys = uniqueSorted(ys);
+        zs = uniqueSorted(zs);
+        if (xs.length < 2 || ys.length < 2 || zs.length < 2)
+            return Shapes.empty();
+
+        var discrete = new BitSetDiscreteVoxelShape(xs.length - 1, ys.length - 1, zs.length - 1);
+        boolean filled = false;
+        for (AABB box : boxes) {
+            int x0 = indexOf(xs, box.minX), x1 = indexOf(xs, box.maxX);
+            int y0 = indexOf(ys, box.minY), y1 = indexOf(ys, box.maxY);
+            int z0 = indexOf(zs, box.minZ), z1 = indexOf(zs, box.maxZ);
+            for (int x = x0; x < x1; x++) {
+                for (int y = y0; y < y1; y++) {
+                    for (int z = z0; z < z1; z++) {
+                        discrete.fill(x, y, z);
+                        filled = true;
+                    }
+                }
+            }
+        }
+        if (!filled)
+            return Shapes.empty();
+        return new ArrayVoxelShape(discrete, DoubleArrayList.wrap(xs), DoubleArrayList.wrap(ys), DoubleArrayList.wrap(zs));
+    }
+
+    /**
+     * Creates a shape from a regular grid of cells.
+     *
+     * @param discrete the filled cells of the grid.
+     * @param minX     the x coordinate of the first cell of the grid, in cells.
+     * @param minY     the y coordinate of the first cell of the grid, in cells.
+     * @param minZ     the z coordinate of the first cell of the grid, in cells.
+     * @param cellSize the size of each cell.
+     * @return a shape covering the filled cells.
+     */
+    public static VoxelShape fromGrid(BitSetDiscreteVoxelShape discrete, int minX, int minY, int minZ, double cellSize) {
+        if (discrete.isEmpty())
+            return Shapes.empty();
+        return new ArrayVoxelShape(discrete,
+                gridCoords(minX, discrete.getXSize(), cellSize),
+                gridCoords(minY, discrete.getYSize(), cellSize),
+                gridCoords(minZ, discrete.getZSize(), cellSize));
+    }
+
+    private static DoubleArrayList gridCoords(int min, int size, double cellSize) {
+        double[] coords = new double[size + 1];
+        for (int i = 0; i <= size; i++) {
+            coords[i] = (min + i) * cellSize;
+        }
+        return DoubleArrayList.wrap(coords);
+    }
+
+    private static double[] uniqueSorted(double[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (double value : values) {
+            if (size == 0 || value - values[size - 1] > EPSILON)
+                values[size++] = value;
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private static int indexOf(double[] coords, double value) {
+        int i = Arrays.binarySearch(coords, value);
+        if (i >= 0)
+            return i;
+        // Not an exact match, so it was merged into its nearest neighbour.
+        int insertion = -i - 1;
+        if (insertion == 0)
+            return 0;
+        if (insertion == coords.length)
+            return coords.length - 1;
+        return value - coords[insertion - 1] < coords[insertion] - value ? insertion - 1 : insertion;
+    }
+}
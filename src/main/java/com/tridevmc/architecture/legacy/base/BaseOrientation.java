@@ -95,7 +95,8 @@ public class BaseOrientation {
                 case EAST -> 3;
                 default -> 0;
             };
-            return new Trans3(origin).turnAround(Vector3.blockCenter, i);
+            // Side 0 leaves the block as it is, so this is the turn about the center of the block.
+            return Trans3.sideTurn(origin, 0, i);
         }
 
     }
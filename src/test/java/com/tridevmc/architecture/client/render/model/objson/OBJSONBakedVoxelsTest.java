@@ -0,0 +1,104 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.utils.VoxelOccupancy;
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks every bake on the classpath against a live voxelization of its model cell by cell. The baker keeps bakes whose
+ * mesh hash still matches, so a voxelizer change that forgets to bump {@link OBJSONBakedVoxels#VERSION} fails here
+ * instead of shipping stale shapes. Also checks that the format round trips and rejects damaged bakes.
+ */
+class OBJSONBakedVoxelsTest {
+
+    private static final long MESH_HASH = 0x0123456789ABCDEFL;
+
+    @TestFactory
+    List<DynamicNode> everyBakeMatchesTheVoxelizer() {
+        List<DynamicNode> models = new ArrayList<>();
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            // Names are <namespace>:<path>, loaded from /data/<namespace>/objson/<path>.
+            String[] name = model.getName().split(":", 2);
+            String path = String.format("/data/%s/objson/%s", name[0], name[1]);
+            List<DynamicNode> tests = new ArrayList<>();
+            for (OBJSONVoxelResolution.Use use : OBJSONVoxelResolution.Use.values()) {
+                // Matches the baker, which skips collision shapes made from authored boxes.
+                if (use == OBJSONVoxelResolution.Use.COLLISION && model.hasAuthoritativeBoxes())
+                    continue;
+                int resolution = OBJSONVoxelResolution.getAutomatic(model, use);
+                tests.add(DynamicTest.dynamicTest(use + " at " + resolution, () -> {
+                    var baked = OBJSONBakedVoxels.read(OBJSONBakedVoxels.getPath(path, resolution), model.getMeshHash(), resolution);
+                    assertNotNull(baked, "No current bake of " + path + " at " + resolution + ", run bakeVoxels");
+                    OBJSONVoxelizerRegressionTest.assertMatches(model.getVoxelizer(resolution).voxelizeOccupancy(), baked);
+                }));
+            }
+            models.add(DynamicContainer.dynamicContainer(model.getName(), tests));
+        }
+        return models;
+    }
+
+    @Test
+    void bakesRoundTrip() throws IOException {
+        var voxels = getVoxels();
+        byte[] bake = write(voxels);
+        assertEquals(voxels, OBJSONBakedVoxels.read(ByteBuffer.wrap(bake), MESH_HASH, voxels.getResolution()));
+    }
+
+    @Test
+    void bakesOfOtherMeshesOrResolutionsAreStale() throws IOException {
+        var voxels = getVoxels();
+        byte[] bake = write(voxels);
+        assertNull(OBJSONBakedVoxels.read(ByteBuffer.wrap(bake), MESH_HASH + 1, voxels.getResolution()));
+        assertNull(OBJSONBakedVoxels.read(ByteBuffer.wrap(bake), MESH_HASH, voxels.getResolution() * 2));
+    }
+
+    @Test
+    void damagedBakesAreRejected() throws IOException {
+        byte[] bake = write(getVoxels());
+        for (int i = Integer.BYTES + Short.BYTES; i < bake.length; i++) {
+            byte[] damaged = bake.clone();
+            damaged[i] ^= 0x10;
+            var e = assertThrows(IOException.class, () -> OBJSONBakedVoxels.read(ByteBuffer.wrap(damaged), MESH_HASH, 16), "Flipped byte " + i);
+            assertEquals("Checksum mismatch", e.getMessage());
+        }
+
+        byte[] otherVersion = bake.clone();
+        ByteBuffer.wrap(otherVersion).putShort(Integer.BYTES, (short) (OBJSONBakedVoxels.VERSION + 1));
+        var e = assertThrows(IOException.class, () -> OBJSONBakedVoxels.read(ByteBuffer.wrap(otherVersion), MESH_HASH, 16));
+        assertTrue(e.getMessage().startsWith("Unsupported version"), e.getMessage());
+
+        byte[] otherMagic = bake.clone();
+        otherMagic[0] ^= 1;
+        assertThrows(IOException.class, () -> OBJSONBakedVoxels.read(ByteBuffer.wrap(otherMagic), MESH_HASH, 16));
+        assertThrows(IOException.class, () -> OBJSONBakedVoxels.read(ByteBuffer.wrap(new byte[3]), MESH_HASH, 16));
+    }
+
+    private static VoxelOccupancy getVoxels() {
+        var voxels = new VoxelOccupancy(16, -2, 0, 1, 5, 4, 3);
+        voxels.set(-2, 0, 1);
+        voxels.set(0, 3, 2);
+        voxels.set(2, 1, 3);
+        return voxels;
+    }
+
+    private static byte[] write(VoxelOccupancy voxels) throws IOException {
+        var out = new ByteArrayOutputStream();
+        OBJSONBakedVoxels.write(MESH_HASH, voxels, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,92 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles every shipped model and checks that reading it back gives the packed faces parsing its JSON does, and that
+ * compiled models of another version are rejected.
+ */
+class OBJSONBinaryTest {
+
+    @Test
+    void everyModelRoundTrips() throws IOException {
+        List<Path> sources = getSources();
+        assertFalse(sources.isEmpty(), "No models were found");
+        for (Path source : sources) {
+            OBJSON json = parse(source);
+            OBJSON compiled = OBJSONBinary.read(ByteBuffer.wrap(compile(json)));
+            String name = source.getFileName().toString();
+            assertArrayEquals(json.bounds, compiled.bounds, name);
+            assertEquals(json.boxes.length, compiled.boxes.length, name);
+            for (int i = 0; i < json.boxes.length; i++) {
+                assertArrayEquals(json.boxes[i], compiled.boxes[i], name);
+            }
+            assertEquals(json.authoritativeBoxes, compiled.authoritativeBoxes, name);
+            assertEquals(json.faces.length, compiled.faces.length, name);
+            for (int f = 0; f < json.faces.length; f++) {
+                OBJSON.Face expected = json.faces[f], actual = compiled.faces[f];
+                String face = name + " face " + f;
+                assertEquals(expected.texture, actual.texture, face);
+                // Positions are kept at full precision, the voxelizer and the mesh hash depend on every bit of them.
+                assertArrayEquals(expected.positions, actual.positions, face);
+                assertArrayEquals(expected.normals, actual.normals, face);
+                assertArrayEquals(expected.uvs, actual.uvs, face);
+                assertArrayEquals(expected.indices, actual.indices, face);
+            }
+        }
+    }
+
+    @Test
+    void otherVersionsAreRejected() throws IOException {
+        byte[] compiled = compile(parse(getSources().get(0)));
+        byte[] otherVersion = compiled.clone();
+        ByteBuffer.wrap(otherVersion).putShort(Integer.BYTES, (short) (OBJSONBinary.VERSION + 1));
+        var e = assertThrows(IOException.class, () -> OBJSONBinary.read(ByteBuffer.wrap(otherVersion)));
+        assertTrue(e.getMessage().startsWith("Unsupported version"), e.getMessage());
+
+        byte[] otherMagic = compiled.clone();
+        otherMagic[0] ^= 1;
+        assertThrows(IOException.class, () -> OBJSONBinary.read(ByteBuffer.wrap(otherMagic)));
+    }
+
+    private static List<Path> getSources() {
+        Path dataRoot = Path.of(System.getProperty(OBJSONTestModels.RESOURCE_ROOT_PROPERTY, "src/main/resources")).resolve("data");
+        try (Stream<Path> files = Files.walk(dataRoot)) {
+            return files.filter(p -> p.toString().endsWith(".objson")).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to find the models under " + dataRoot, e);
+        }
+    }
+
+    private static OBJSON parse(Path source) throws IOException {
+        try (Reader reader = Files.newBufferedReader(source)) {
+            OBJSON model = OBJSON.fromJson(reader);
+            // Written as the bounds followed by the boxes, models without boxes read back with none.
+            if (model.boxes == null)
+                model.boxes = new double[0][];
+            return model;
+        }
+    }
+
+    private static byte[] compile(OBJSON model) throws IOException {
+        var out = new ByteArrayOutputStream();
+        OBJSONBinary.write(model, out);
+        return out.toByteArray();
+    }
+}
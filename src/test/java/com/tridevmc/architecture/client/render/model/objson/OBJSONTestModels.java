@@ -0,0 +1,55 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import net.minecraft.resources.ResourceLocation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Loads every shipped model for the tests and benchmarks, finding them under the resource root given by the
+ * <code>architecturecraft.resourceRoot</code> system property and loading them from the classpath like the game does.
+ */
+public class OBJSONTestModels {
+
+    public static final String RESOURCE_ROOT_PROPERTY = "architecturecraft.resourceRoot";
+
+    private static List<OBJSON> models;
+
+    /**
+     * Gets every shipped model, sorted by the path of its source.
+     */
+    public static synchronized List<OBJSON> getAll() {
+        if (models == null) {
+            Path dataRoot = Path.of(System.getProperty(RESOURCE_ROOT_PROPERTY, "src/main/resources")).resolve("data");
+            List<Path> sources;
+            try (Stream<Path> files = Files.walk(dataRoot)) {
+                sources = files.filter(p -> p.toString().endsWith(".objson")).sorted().toList();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to find the models under " + dataRoot, e);
+            }
+            List<OBJSON> loaded = new ArrayList<>();
+            for (Path source : sources) {
+                // data/<namespace>/objson/<path>
+                Path relative = dataRoot.relativize(source);
+                String path = relative.subpath(2, relative.getNameCount()).toString().replace('\\', '/');
+                loaded.add(OBJSON.fromResource(new ResourceLocation(relative.getName(0).toString(), path)));
+            }
+            models = List.copyOf(loaded);
+        }
+        return models;
+    }
+
+    /**
+     * Gets the distinct resolutions the given model is voxelized at, for collision and then for picking.
+     */
+    public static int[] getResolutions(OBJSON model) {
+        int collision = OBJSONVoxelResolution.getAutomatic(model, OBJSONVoxelResolution.Use.COLLISION);
+        int picking = OBJSONVoxelResolution.getAutomatic(model, OBJSONVoxelResolution.Use.PICKING);
+        return collision == picking ? new int[]{collision} : new int[]{collision, picking};
+    }
+}
@@ -0,0 +1,64 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.utils.BVH;
+import net.minecraft.world.phys.Vec3;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks the ordered ray queries of the mesh against intersecting the ray with every triangle of every shipped model.
+ */
+class OBJSONVoxelizerRaycastTest {
+
+    private static final int RAYS_PER_MODEL = 200;
+
+    @Test
+    void raycastsFindEveryHitInOrder() {
+        var random = new SplittableRandom(1);
+        var all = new BVH.RayHits();
+        var nearest = new BVH.RayHits();
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            var mesh = new OBJSONVoxelizer(model, 16).getMesh();
+            for (int i = 0; i < RAYS_PER_MODEL; i++) {
+                Vec3 origin = new Vec3(random.nextDouble(-1.5, 1.5), random.nextDouble(-1.5, 1.5), random.nextDouble(-1.5, 1.5));
+                // Half the rays run along x like the scanlines of the voxelizer, so some start and end inside nodes.
+                Vec3 direction = i % 2 == 0 ? new Vec3(3, 0, 0)
+                        : new Vec3(random.nextDouble(-2, 2), random.nextDouble(-2, 2), random.nextDouble(-2, 2));
+                var ray = new OBJSONVoxelizer.Ray(origin, direction);
+                String name = model.getName() + " from " + origin + " along " + direction;
+
+                List<Double> expected = new ArrayList<>();
+                for (int t = 0; t < mesh.getBVH().getPrimitiveCount(); t++) {
+                    double distance = mesh.getTriangle(t).intersect(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z);
+                    if (distance >= 0 && distance <= 1)
+                        expected.add(distance);
+                }
+                Collections.sort(expected);
+
+                int count = mesh.raycastAll(ray, all);
+                assertEquals(expected.size(), count, name);
+                for (int hit = 0; hit < count; hit++) {
+                    assertEquals(expected.get(hit), all.getDistance(hit), 0, name);
+                }
+                assertEquals(count > 0, mesh.raycastNearest(ray, nearest), name);
+                if (count > 0)
+                    assertEquals(all.getDistance(0), nearest.getDistance(0), 0, name);
+            }
+        }
+    }
+
+    @Test
+    void emptyHierarchiesAreNeverHit() {
+        var empty = new BVH(new double[0]);
+        var hits = new BVH.RayHits();
+        assertEquals(0, empty.raycastAll(0, 0, 0, 1, 1, 1, 1, i -> 0.5, hits));
+        assertFalse(empty.raycastNearest(0, 0, 0, 1, 1, 1, 1, i -> 0.5, hits));
+    }
+}
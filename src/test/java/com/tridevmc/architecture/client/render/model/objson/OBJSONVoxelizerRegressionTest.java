@@ -0,0 +1,101 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import com.tridevmc.architecture.common.utils.LatticeBatchKernel;
+import com.tridevmc.architecture.common.utils.VoxelOccupancy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Voxelizes every shipped model with every {@link OBJSONVoxelizer.Strategy} at each resolution it is used at and checks
+ * the result of each against {@link OBJSONVoxelizer.Strategy#PER_VOXEL} cell by cell, so the voxelizer can be optimized
+ * without changing any collision or picking shape. When the vector kernel is available every strategy is also run with
+ * it. The timings live in <code>OBJSONVoxelizerBenchmark</code>.
+ */
+class OBJSONVoxelizerRegressionTest {
+
+    @AfterEach
+    void clearKernelProperty() {
+        System.clearProperty(LatticeBatchKernel.PROPERTY);
+    }
+
+    @TestFactory
+    List<DynamicNode> everyStrategyMatchesPerVoxel() {
+        boolean vector = LatticeBatchKernel.get() != null;
+        List<DynamicNode> models = new ArrayList<>();
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            List<DynamicNode> tests = new ArrayList<>();
+            for (int resolution : OBJSONTestModels.getResolutions(model)) {
+                var reference = new Reference(model, resolution);
+                for (boolean useVector : vector ? new boolean[]{false, true} : new boolean[]{false}) {
+                    for (var strategy : OBJSONVoxelizer.Strategy.values()) {
+                        String name = strategy + " at " + resolution + (useVector ? " with the vector kernel" : "");
+                        tests.add(DynamicTest.dynamicTest(name, () -> {
+                            var expected = reference.get();
+                            System.setProperty(LatticeBatchKernel.PROPERTY, Boolean.toString(useVector));
+                            var occupancy = new OBJSONVoxelizer(model, resolution).voxelizeOccupancy(strategy);
+                            assertMatches(expected, occupancy);
+                        }));
+                    }
+                }
+            }
+            models.add(DynamicContainer.dynamicContainer(model.getName(), tests));
+        }
+        return models;
+    }
+
+    static void assertMatches(VoxelOccupancy reference, VoxelOccupancy occupancy) {
+        int missing = 0, extra = 0;
+        String firstDifference = "none";
+        var min = reference.getMin();
+        var max = reference.getMax();
+        for (int x = Math.min(min.getX(), occupancy.getMin().getX()); x < Math.max(max.getX(), occupancy.getMax().getX()); x++) {
+            for (int y = Math.min(min.getY(), occupancy.getMin().getY()); y < Math.max(max.getY(), occupancy.getMax().getY()); y++) {
+                for (int z = Math.min(min.getZ(), occupancy.getMin().getZ()); z < Math.max(max.getZ(), occupancy.getMax().getZ()); z++) {
+                    boolean expected = reference.get(x, y, z);
+                    if (expected == occupancy.get(x, y, z))
+                        continue;
+                    if (expected) {
+                        missing++;
+                    } else {
+                        extra++;
+                    }
+                    if (missing + extra == 1)
+                        firstDifference = x + " " + y + " " + z;
+                }
+            }
+        }
+        String message = "Missing " + missing + " and has " + extra + " extra cells, first at " + firstDifference;
+        assertEquals(0, missing + extra, message);
+    }
+
+    /**
+     * The per voxel occupancy of a model at a resolution, voxelized once by the first test that needs it.
+     */
+    private static class Reference {
+
+        private final OBJSON model;
+        private final int resolution;
+        private VoxelOccupancy occupancy;
+
+        private Reference(OBJSON model, int resolution) {
+            this.model = model;
+            this.resolution = resolution;
+        }
+
+        private VoxelOccupancy get() {
+            if (this.occupancy == null) {
+                System.setProperty(LatticeBatchKernel.PROPERTY, "false");
+                this.occupancy = new OBJSONVoxelizer(this.model, this.resolution).voxelizeOccupancy(OBJSONVoxelizer.Strategy.PER_VOXEL);
+            }
+            return this.occupancy;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.tridevmc.architecture.client.render.model.objson;
+
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks {@link OBJSONVoxelizer.InsideTest#WINDING_NUMBER} against {@link OBJSONVoxelizer.InsideTest#RAYCAST} on the
+ * cylinders, which are closed meshes, so both tests have to agree on every cell. They only differ on meshes with holes.
+ */
+class OBJSONWindingNumberTest {
+
+    @TestFactory
+    List<DynamicNode> windingNumberMatchesRaycastOnClosedMeshes() {
+        List<DynamicNode> tests = new ArrayList<>();
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            if (!model.getName().contains("/cylinder_"))
+                continue;
+            for (int resolution : OBJSONTestModels.getResolutions(model)) {
+                tests.add(DynamicTest.dynamicTest(model.getName() + " at " + resolution, () -> {
+                    var raycast = new OBJSONVoxelizer(model, resolution, OBJSONVoxelizer.InsideTest.RAYCAST).voxelizeOccupancy();
+                    var windingNumber = new OBJSONVoxelizer(model, resolution, OBJSONVoxelizer.InsideTest.WINDING_NUMBER).voxelizeOccupancy();
+                    OBJSONVoxelizerRegressionTest.assertMatches(raycast, windingNumber);
+                }));
+            }
+        }
+        assertFalse(tests.isEmpty(), "No cylinders were found");
+        return tests;
+    }
+}
@@ -0,0 +1,106 @@
+package com.tridevmc.architecture.common.shape;
+
+import com.tridevmc.architecture.client.render.model.objson.OBJSON;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONTestModels;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelResolution.Use;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONVoxelizerExecutor;
+import com.tridevmc.architecture.common.helpers.Trans3;
+import net.minecraft.world.phys.shapes.BooleanOp;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks that an {@link OrientedShapeTable} hands back the shape fetching it uncached gives for every orientation, the
+ * way {@link com.tridevmc.architecture.common.shape.behaviour.ShapeBehaviourModel} fetches it, and that orientations
+ * it can't table are left to the caller.
+ */
+class OrientedShapeTableTest {
+
+    // Models without any symmetry, so every side, turn and offset gives a different shape.
+    private static final List<String> MODELS = List.of("cylinder_quarter_r8h16", "roof_overhang_outer_corner");
+
+    private static final Function<Trans3, VoxelShape> TABLED = t -> fail("Fetched a shape that was already tabled");
+
+    @Test
+    void tabledShapesMatchTheUncachedShapes() {
+        for (String name : MODELS) {
+            OBJSON model = getModel(name);
+            var table = new OrientedShapeTable();
+            for (Use use : Use.values()) {
+                Function<Trans3, VoxelShape> uncached = t -> t.t(model.getVoxelized(use, OBJSONVoxelizerExecutor.Priority.BLOCKING));
+                // Fill every orientation before reading any back, so orientations sharing an entry would show up.
+                for (int side = 0; side < 6; side++) {
+                    for (int turn = 0; turn < 4; turn++) {
+                        for (int offsetX = -16; offsetX <= 16; offsetX++) {
+                            assertNotNull(table.get(use, side, turn, offsetX, uncached));
+                        }
+                    }
+                }
+                for (int side = 0; side < 6; side++) {
+                    for (int turn = 0; turn < 4; turn++) {
+                        for (int offsetX = -16; offsetX <= 16; offsetX++) {
+                            VoxelShape tabled = table.get(use, side, turn, offsetX, TABLED);
+                            VoxelShape expected = uncached.apply(Trans3.oriented(side, turn, offsetX));
+                            assertFalse(Shapes.joinIsNotEmpty(expected, tabled, BooleanOp.NOT_SAME),
+                                    name + " " + use + " on side " + side + " turn " + turn + " offset " + offsetX);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void everyOrientationHasItsOwnKey() {
+        Set<Integer> keys = new HashSet<>();
+        for (int side = 0; side < 6; side++) {
+            for (int turn = 0; turn < 4; turn++) {
+                for (int offsetX = -16; offsetX <= 16; offsetX++) {
+                    int key = OrientedShapeTable.getKey(side, turn, offsetX);
+                    assertTrue(key >= 0 && keys.add(key), "side " + side + " turn " + turn + " offset " + offsetX);
+                }
+            }
+        }
+    }
+
+    @Test
+    void offsetsBeyondTheTableAreNotTabled() {
+        var table = new OrientedShapeTable();
+        assertEquals(-1, OrientedShapeTable.getKey(0, 0, 17));
+        assertEquals(-1, OrientedShapeTable.getKey(0, 0, -17));
+        assertNull(table.get(Use.COLLISION, 0, 0, 17, TABLED));
+        assertNull(table.get(Use.COLLISION, 0, 0, -17, TABLED));
+    }
+
+    @Test
+    void emptyOrUnreadyShapesAreNotTabled() {
+        var table = new OrientedShapeTable();
+        VoxelShape box = Shapes.box(0, 0, 0, 0.5, 0.25, 1);
+        assertNull(table.get(Use.COLLISION, 1, 2, 3, t -> null));
+        assertNull(table.get(Use.COLLISION, 1, 2, 3, t -> Shapes.empty()));
+        assertSame(box, table.get(Use.COLLISION, 1, 2, 3, t -> box));
+        assertSame(box, table.get(Use.COLLISION, 1, 2, 3, TABLED));
+        assertNull(table.get(Use.PICKING, 1, 2, 3, t -> null));
+    }
+
+    private static OBJSON getModel(String name) {
+        return OBJSONTestModels.getAll().stream()
+                .filter(m -> m.getName().endsWith("/" + name + ".objson"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No model named " + name));
+    }
+}
@@ -0,0 +1,107 @@
+package com.tridevmc.architecture.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the box search of {@link BVH} against brute force, and that touching boxes, declining sinks and empty
+ * hierarchies behave as documented. Ray queries are covered by <code>OBJSONVoxelizerRaycastTest</code>.
+ */
+class BVHTest {
+
+    @Test
+    void searchFindsEveryOverlappingPrimitive() {
+        var random = new SplittableRandom(7);
+        double[] bounds = new double[500 * 6];
+        for (int i = 0; i < 500; i++) {
+            for (int a = 0; a < 3; a++) {
+                double min = random.nextDouble() * 16;
+                bounds[i * 6 + a] = min;
+                bounds[i * 6 + 3 + a] = min + random.nextDouble() * 2;
+            }
+        }
+        var bvh = new BVH(bounds);
+        for (int q = 0; q < 200; q++) {
+            double[] query = new double[6];
+            for (int a = 0; a < 3; a++) {
+                query[a] = random.nextDouble() * 16;
+                query[3 + a] = query[a] + random.nextDouble() * 4;
+            }
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                if (overlaps(bounds, i, query))
+                    expected.add(i);
+            }
+            List<Integer> found = new ArrayList<>();
+            assertTrue(bvh.search(query[0], query[1], query[2], query[3], query[4], query[5], found::add));
+            found.sort(null);
+            assertEquals(expected, found, "Query " + q);
+        }
+    }
+
+    @Test
+    void touchingPrimitivesAreNotFound() {
+        // A row of unit cubes along X, the middle one shares a face with each of its neighbours.
+        double[] bounds = new double[3 * 6];
+        for (int i = 0; i < 3; i++) {
+            bounds[i * 6] = i;
+            bounds[i * 6 + 3] = i + 1;
+            bounds[i * 6 + 4] = 1;
+            bounds[i * 6 + 5] = 1;
+        }
+        var bvh = new BVH(bounds);
+        List<Integer> found = new ArrayList<>();
+        bvh.search(1, 0, 0, 2, 1, 1, found::add);
+        assertEquals(List.of(1), found);
+
+        found.clear();
+        bvh.search(3, 0, 0, 4, 1, 1, found::add);
+        assertEquals(List.of(), found, "A box only touching the last cube");
+    }
+
+    @Test
+    void searchStopsWhenTheSinkDeclines() {
+        double[] bounds = new double[64 * 6];
+        for (int i = 0; i < 64; i++) {
+            bounds[i * 6 + 3] = 1;
+            bounds[i * 6 + 4] = 1;
+            bounds[i * 6 + 5] = 1;
+        }
+        var bvh = new BVH(bounds);
+        var visits = new AtomicInteger();
+        assertFalse(bvh.search(0, 0, 0, 1, 1, 1, i -> visits.incrementAndGet() < 3));
+        assertEquals(3, visits.get());
+    }
+
+    @Test
+    void emptyHierarchiesFindNothing() {
+        var bvh = new BVH(new double[0]);
+        assertEquals(0, bvh.getPrimitiveCount());
+        assertTrue(bvh.search(-1E9, -1E9, -1E9, 1E9, 1E9, 1E9, i -> {
+            throw new AssertionError("Visited " + i);
+        }));
+        var hits = new BVH.RayHits();
+        BVH.RayIntersector intersector = i -> {
+            throw new AssertionError("Intersected " + i);
+        };
+        assertFalse(bvh.raycastNearest(-1, -1, -1, 1, 1, 1, 10, intersector, hits));
+        assertEquals(0, bvh.raycastAll(-1, -1, -1, 1, 1, 1, 10, intersector, hits));
+        assertEquals(0, bvh.raycastAll(-1, 0, 0, 1, 0, 0, 10, intersector, hits));
+    }
+
+    private static boolean overlaps(double[] bounds, int i, double[] box) {
+        for (int a = 0; a < 3; a++) {
+            if (bounds[i * 6 + a] >= box[3 + a] || bounds[i * 6 + 3 + a] <= box[a])
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+package com.tridevmc.architecture.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentLongKeyedCacheTest {
+
+    private static final int CAPACITY = 4096;
+    private static final int THREADS = 8;
+    private static final long STRESS_NANOS = 2_000_000_000L;
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertEquals(8, new ConcurrentLongKeyedCache<String>("Test", 5).capacity());
+        assertEquals(8, new ConcurrentLongKeyedCache<String>("Test", 8).capacity());
+    }
+
+    @Test
+    void getReturnsTheValuePutForAKey() {
+        var cache = new ConcurrentLongKeyedCache<String>("Test", 16);
+        assertNull(cache.get(42));
+        cache.put(42, "a");
+        assertEquals("a", cache.get(42));
+        cache.put(42, "b");
+        assertEquals("b", cache.get(42));
+        assertEquals(1, cache.size());
+        cache.invalidate(42);
+        assertNull(cache.get(42));
+        cache.put(-1, "c");
+        cache.clear();
+        assertNull(cache.get(-1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void neverGrowsPastItsCapacity() {
+        var cache = new ConcurrentLongKeyedCache<Long>("Test", 64);
+        for (long key = 0; key < 10_000; key++) {
+            cache.put(key, key);
+            assertEquals(Long.valueOf(key), cache.get(key), "The latest key must always be cached");
+        }
+        assertTrue(cache.size() <= cache.capacity(), "Holds " + cache.size() + " entries");
+        for (long key = 0; key < 10_000; key++) {
+            Long value = cache.get(key);
+            assertTrue(value == null || value == key, "Key " + key + " returned the value of " + value);
+        }
+    }
+
+    /**
+     * Hammers a cache from many threads at once, the way the server thread and the chunk builders share the block shape
+     * caches. Every thread looks up keys drawn from a skewed distribution over more keys than fit, caching a value that
+     * records its key on each miss.
+     */
+    @Test
+    void concurrentLookupsOnlyReturnTheirOwnKeysValue() throws InterruptedException {
+        var cache = new ConcurrentLongKeyedCache<Long>("Test", CAPACITY);
+        stress(cache::get, cache::put);
+        assertTrue(cache.size() <= cache.capacity(), "Holds " + cache.size() + " entries");
+    }
+
+    /**
+     * Gets keys spread over the fields of an orientation key rather than counting up, the way real keys are packed.
+     */
+    static long[] getKeys(int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = (i & 0x3FF) | (long) (i >> 10 & 0x7) << 24 | (long) (i >> 13) << 43;
+        }
+        return keys;
+    }
+
+    private static void stress(Getter get, Putter put) throws InterruptedException {
+        long[] keys = getKeys(CAPACITY * 4);
+        var start = new CountDownLatch(1);
+        var lookups = new AtomicLong();
+        var wrong = new AtomicReference<String>();
+        long deadline = System.nanoTime() + STRESS_NANOS;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            var random = new SplittableRandom(t);
+            var worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                while ((done & 0xFFF) != 0 || System.nanoTime() < deadline) {
+                    // Squaring favours low indices, so some keys are hot and the rest keep evicting each other.
+                    double r = random.nextDouble();
+                    long key = keys[(int) (r * r * keys.length)];
+                    Long value = get.get(key);
+                    if (value == null) {
+                        put.put(key, key);
+                    } else if (value != key) {
+                        wrong.compareAndSet(null, String.format("Key %x returned the value of %x", key, value));
+                    }
+                    done++;
+                }
+                lookups.addAndGet(done);
+            }, "Cache stress " + t);
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertNull(wrong.get(), wrong.get());
+        assertTrue(lookups.get() > 0);
+    }
+
+    private interface Getter {
+        Long get(long key);
+    }
+
+    private interface Putter {
+        void put(long key, Long value);
+    }
+}
@@ -0,0 +1,75 @@
+package com.tridevmc.architecture.common.utils;
+
+import com.tridevmc.architecture.client.render.model.objson.OBJSON;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONTestModels;
+import com.tridevmc.architecture.common.helpers.Trans3;
+import com.tridevmc.architecture.common.helpers.Vector3;
+import net.minecraft.world.phys.shapes.BooleanOp;
+import net.minecraft.world.phys.shapes.Shapes;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that rotating the voxelized shape of every shipped model into each of the 24 side and turn orientations with a
+ * {@link CubeRotation} gives the same shape as sending it through the matrix of the {@link Trans3}.
+ */
+class CubeRotationTest {
+
+    @Test
+    void rotatingGridsMatchesTheMatrix() {
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            var occupancy = model.getVoxelizer().voxelizeOccupancy();
+            int resolution = occupancy.getResolution();
+            for (int index = 0; index < 24; index++) {
+                Trans3 t = getTransform(index);
+                var rotated = t.getCubeRotation().rotate(occupancy);
+                String name = model.getName() + " rotated by " + t;
+                assertEquals(occupancy.cardinality(), rotated.cardinality(), name);
+                var min = occupancy.getMin();
+                var max = occupancy.getMax();
+                for (int x = min.getX(); x < max.getX(); x++) {
+                    for (int y = min.getY(); y < max.getY(); y++) {
+                        for (int z = min.getZ(); z < max.getZ(); z++) {
+                            if (!occupancy.get(x, y, z))
+                                continue;
+                            // Rotate the center of the cell about the center of the block.
+                            Vector3 center = t.v((x + 0.5) / resolution - 0.5, (y + 0.5) / resolution - 0.5, (z + 0.5) / resolution - 0.5);
+                            assertTrue(rotated.get((int) Math.floor((center.x + 0.5) * resolution),
+                                    (int) Math.floor((center.y + 0.5) * resolution),
+                                    (int) Math.floor((center.z + 0.5) * resolution)), name + " lost " + x + " " + y + " " + z);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void rotatingShapesMatchesRotatingEveryBox() {
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            var shape = model.getVoxelizer().voxelizeOccupancy().toVoxelShape();
+            for (int index = 0; index < 24; index++) {
+                Trans3 t = getTransform(index);
+                var boxes = VoxelShapeUtils.fromBoxes(t.t(shape.toAabbs()));
+                assertFalse(Shapes.joinIsNotEmpty(boxes, t.t(shape), BooleanOp.NOT_SAME), model.getName() + " rotated by " + t);
+            }
+        }
+    }
+
+    @Test
+    void everySideAndTurnIsACubeRotation() {
+        for (int index = 0; index < 24; index++) {
+            Trans3 t = getTransform(index);
+            assertNotNull(t.getCubeRotation(), t.toString());
+            assertEquals(index, t.getCubeRotation().getIndex(), t.toString());
+        }
+    }
+
+    private static Trans3 getTransform(int index) {
+        return Trans3.sideTurn(Vector3.zero, index / 4, index % 4);
+    }
+}
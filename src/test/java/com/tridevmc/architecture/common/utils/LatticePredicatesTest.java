@@ -0,0 +1,104 @@
+package com.tridevmc.architecture.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static com.tridevmc.architecture.common.utils.LatticePredicates.MAX_COORDINATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the exact predicates of {@link LatticePredicates} where rounding used to decide the answer: on touching
+ * boundaries, on edges and vertices, and at the limits of the lattice and of 64 bit products.
+ */
+class LatticePredicatesTest {
+
+    // A right triangle in the plane z = 0, its legs along X and Y from the origin.
+    private static final long[] FLAT = {0, 0, 0, 8, 0, 0, 0, 8, 0};
+
+    @Test
+    void touchingBoxesIntersect() {
+        assertTrue(LatticePredicates.intersects(FLAT, -4, -4, 0, 4, 4, 4), "Box resting on the face");
+        assertTrue(LatticePredicates.intersects(FLAT, 8, 0, -1, 9, 1, 1), "Box touching a vertex");
+        assertTrue(LatticePredicates.intersects(FLAT, 4, 4, -1, 5, 5, 1), "Box touching the hypotenuse at a corner");
+        assertTrue(LatticePredicates.intersects(FLAT, 1, 1, -1, 2, 2, 1), "Box through the interior");
+    }
+
+    @Test
+    void separatedBoxesDoNotIntersect() {
+        assertFalse(LatticePredicates.intersects(FLAT, -4, -4, 1, 4, 4, 4), "Box one unit above the face");
+        assertFalse(LatticePredicates.intersects(FLAT, 9, 0, -1, 10, 1, 1), "Box one unit past a vertex");
+        assertFalse(LatticePredicates.intersects(FLAT, 5, 4, -1, 6, 5, 1), "Box one unit past the hypotenuse");
+    }
+
+    @Test
+    void intersectsAtTheLimitsOfTheLattice() {
+        // Spans the whole lattice in the plane z = MAX_COORDINATE, the largest intermediate values the test can see.
+        long m = MAX_COORDINATE;
+        long[] v = {-m, -m, m, m, -m, m, -m, m, m};
+        assertTrue(LatticePredicates.intersects(v, -m, -m, m - 1, m, m, m));
+        assertFalse(LatticePredicates.intersects(v, -m, -m, -m, m, m, m - 1));
+        assertTrue(LatticePredicates.intersects(v, 0, 0, -m, m, m, m), "Box touching the hypotenuse");
+        assertFalse(LatticePredicates.intersects(v, 1, 0, -m, m, m, m), "Box one unit past the hypotenuse");
+    }
+
+    @Test
+    void coordinatesOutsideTheLatticeAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LatticePredicates.snap(MAX_COORDINATE / (double) LatticePredicates.LATTICE + 1));
+        assertEquals(MAX_COORDINATE, LatticePredicates.snap(MAX_COORDINATE / (double) LatticePredicates.LATTICE));
+        // Only checked by assertions, which the tests run with.
+        assertThrows(AssertionError.class, () -> LatticePredicates.intersects(FLAT, 0, 0, 0, MAX_COORDINATE + 1, 1, 1));
+    }
+
+    @Test
+    void linesCrossEdgesAndVertices() {
+        // Leans along X so every crossing has a distinct x coordinate.
+        long[] v = {10, 0, 0, 20, 4, 0, 30, 0, 4};
+        long[] reversed = {10, 0, 0, 30, 0, 4, 20, 4, 0};
+        for (long[] triangle : new long[][]{v, reversed}) {
+            assertCrossing(triangle, 2, 0, 15);
+            assertCrossing(triangle, 4, 0, 20);
+            assertCrossing(triangle, 0, 0, 10);
+            assertCrossing(triangle, 1, 1, 17.5);
+            long[] out = new long[2];
+            assertFalse(LatticePredicates.crossesLineX(triangle, 5, 0, out), "Past a vertex");
+            assertFalse(LatticePredicates.crossesLineX(triangle, 2, -1, out), "Past an edge");
+        }
+    }
+
+    @Test
+    void linesInThePlaneOfATriangleDoNotCrossIt() {
+        long[] out = new long[2];
+        assertFalse(LatticePredicates.crossesLineX(new long[]{0, 0, 0, 8, 0, 0, 0, 0, 8}, 0, 1, out));
+    }
+
+    @Test
+    void productsCompareExactlyPastSixtyFourBits() {
+        long max = Long.MAX_VALUE;
+        assertEquals(0, LatticePredicates.compareProducts(max, max, max, max));
+        assertTrue(LatticePredicates.compareProducts(max, max, max, max - 1) > 0);
+        assertTrue(LatticePredicates.compareProducts(Long.MIN_VALUE + 1, max, max, max) < 0);
+        // Both wrap to zero in 64 bits.
+        assertTrue(LatticePredicates.compareProducts(1L << 62, 4, 1L << 62, 3) > 0);
+        assertEquals(0, LatticePredicates.compareProducts(-(1L << 62), 4, 1L << 62, -4));
+        // Negative products share their high bits, the low bits decide.
+        assertTrue(LatticePredicates.compareProducts(-1, 1, -2, 1) > 0);
+        assertTrue(LatticePredicates.compareProducts(-2, 1, -1, 1) < 0);
+    }
+
+    @Test
+    void fractionsCompareExactly() {
+        long big = 1L << 61;
+        assertEquals(0, LatticePredicates.compareFractions(big, 3 * big, 1, 3));
+        assertTrue(LatticePredicates.compareFractions(big + 1, 3 * big, 1, 3) > 0);
+        assertTrue(LatticePredicates.compareFractions(-big, 3 * big, 0, 1) < 0);
+    }
+
+    private static void assertCrossing(long[] triangle, long y, long z, double x) {
+        long[] out = new long[2];
+        assertTrue(LatticePredicates.crossesLineX(triangle, y, z, out), "Line at " + y + " " + z);
+        assertTrue(out[1] > 0, "Denominator " + out[1]);
+        assertEquals(x, (double) out[0] / out[1], 0, "Line at " + y + " " + z);
+    }
+}
@@ -0,0 +1,100 @@
+package com.tridevmc.architecture.common.utils;
+
+import com.tridevmc.architecture.client.render.model.objson.OBJSON;
+import com.tridevmc.architecture.client.render.model.objson.OBJSONTestModels;
+import net.minecraft.world.phys.AABB;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the boxes {@link VoxelOccupancy#toMergedBoxes()} merges the cells of a grid into are disjoint and that
+ * their union is exactly the solid cells, on random grids and on the voxelized shape of every shipped model.
+ */
+class VoxelOccupancyTest {
+
+    @Test
+    void mergedBoxesCoverRandomGridsExactly() {
+        var random = new SplittableRandom(11);
+        for (int i = 0; i < 200; i++) {
+            var occupancy = new VoxelOccupancy(16, random.nextInt(-4, 4), random.nextInt(-4, 4), random.nextInt(-4, 4),
+                    random.nextInt(1, 10), random.nextInt(1, 10), random.nextInt(1, 10));
+            // Denser grids leave larger runs to merge.
+            double density = random.nextDouble();
+            var min = occupancy.getMin();
+            var max = occupancy.getMax();
+            for (int x = min.getX(); x < max.getX(); x++) {
+                for (int y = min.getY(); y < max.getY(); y++) {
+                    for (int z = min.getZ(); z < max.getZ(); z++) {
+                        if (random.nextDouble() < density)
+                            occupancy.set(x, y, z);
+                    }
+                }
+            }
+            assertCoversExactly(occupancy, "Grid " + i);
+        }
+    }
+
+    @Test
+    void mergedBoxesCoverEveryModelExactly() {
+        for (OBJSON model : OBJSONTestModels.getAll()) {
+            assertCoversExactly(model.getVoxelizer().voxelizeOccupancy(), model.getName());
+        }
+    }
+
+    @Test
+    void solidGridsMergeIntoOneBox() {
+        var occupancy = new VoxelOccupancy(8, 0, 0, 0, 8, 8, 8);
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                for (int z = 0; z < 8; z++) {
+                    occupancy.set(x, y, z);
+                }
+            }
+        }
+        var boxes = occupancy.toMergedBoxes();
+        assertEquals(1, boxes.size());
+        var box = boxes.get(0);
+        assertEquals(0D, box.minX);
+        assertEquals(1D, box.maxZ);
+    }
+
+    private static void assertCoversExactly(VoxelOccupancy occupancy, String name) {
+        int resolution = occupancy.getResolution();
+        var min = occupancy.getMin();
+        var max = occupancy.getMax();
+        int sizeX = max.getX() - min.getX(), sizeY = max.getY() - min.getY(), sizeZ = max.getZ() - min.getZ();
+        int[] covered = new int[sizeX * sizeY * sizeZ];
+        for (AABB box : occupancy.toMergedBoxes()) {
+            int x0 = toCell(box.minX, resolution), y0 = toCell(box.minY, resolution), z0 = toCell(box.minZ, resolution);
+            int x1 = toCell(box.maxX, resolution), y1 = toCell(box.maxY, resolution), z1 = toCell(box.maxZ, resolution);
+            assertTrue(x0 < x1 && y0 < y1 && z0 < z1, name + ": empty box " + box);
+            assertTrue(x0 >= min.getX() && y0 >= min.getY() && z0 >= min.getZ()
+                    && x1 <= max.getX() && y1 <= max.getY() && z1 <= max.getZ(), name + ": box outside of the grid " + box);
+            for (int x = x0; x < x1; x++) {
+                for (int y = y0; y < y1; y++) {
+                    for (int z = z0; z < z1; z++) {
+                        covered[((x - min.getX()) * sizeY + y - min.getY()) * sizeZ + z - min.getZ()]++;
+                    }
+                }
+            }
+        }
+        for (int x = min.getX(); x < max.getX(); x++) {
+            for (int y = min.getY(); y < max.getY(); y++) {
+                for (int z = min.getZ(); z < max.getZ(); z++) {
+                    int count = covered[((x - min.getX()) * sizeY + y - min.getY()) * sizeZ + z - min.getZ()];
+                    assertEquals(occupancy.get(x, y, z) ? 1 : 0, count, name + ": cell " + x + " " + y + " " + z);
+                }
+            }
+        }
+    }
+
+    private static int toCell(double coordinate, int resolution) {
+        double cell = coordinate * resolution;
+        assertEquals(Math.rint(cell), cell, 1E-9, "Box edge off the grid at " + coordinate);
+        return (int) Math.rint(cell);
+    }
+}
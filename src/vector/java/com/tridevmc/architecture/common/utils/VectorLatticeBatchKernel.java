@@ -0,0 +1,123 @@
+package com.tridevmc.architecture.common.utils;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Tests a box against as many triangles per instruction as the widest double vector of the CPU holds, using the same
+ * separating axis test as {@link LatticePredicates#intersects}.
+ * <p>
+ * Lattice coordinates are held in doubles, which are exact for every value the test computes within
+ * {@link LatticeTriangleBatch#MAX_EXACT_COORDINATE}, so the result is identical to the scalar test.
+ */
+public class VectorLatticeBatchKernel implements LatticeBatchKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean intersectsAny(LatticeTriangleBatch batch, int from, int to, long minX, long minY, long minZ, long maxX, long maxY, long maxZ) {
+        double cx = minX + maxX, cy = minY + maxY, cz = minZ + maxZ;
+        double hx = maxX - minX, hy = maxY - minY, hz = maxZ - minZ;
+        double[] x0 = batch.getCoordinates(0), y0 = batch.getCoordinates(1), z0 = batch.getCoordinates(2);
+        double[] x1 = batch.getCoordinates(3), y1 = batch.getCoordinates(4), z1 = batch.getCoordinates(5);
+        double[] x2 = batch.getCoordinates(6), y2 = batch.getCoordinates(7), z2 = batch.getCoordinates(8);
+
+        for (int i = from; i < to; i += SPECIES.length()) {
+            VectorMask<Double> inRange = SPECIES.indexInRange(i, to);
+            // Move the triangles into the space of the box, at twice the scale.
+            var v0x = DoubleVector.fromArray(SPECIES, x0, i).mul(2).sub(cx);
+            var v1x = DoubleVector.fromArray(SPECIES, x1, i).mul(2).sub(cx);
+            var v2x = DoubleVector.fromArray(SPECIES, x2, i).mul(2).sub(cx);
+            var separated = isSeparated(v0x, v1x, v2x, hx);
+            var v0y = DoubleVector.fromArray(SPECIES, y0, i).mul(2).sub(cy);
+            var v1y = DoubleVector.fromArray(SPECIES, y1, i).mul(2).sub(cy);
+            var v2y = DoubleVector.fromArray(SPECIES, y2, i).mul(2).sub(cy);
+            separated = separated.or(isSeparated(v0y, v1y, v2y, hy));
+            var v0z = DoubleVector.fromArray(SPECIES, z0, i).mul(2).sub(cz);
+            var v1z = DoubleVector.fromArray(SPECIES, z1, i).mul(2).sub(cz);
+            var v2z = DoubleVector.fromArray(SPECIES, z2, i).mul(2).sub(cz);
+            separated = separated.or(isSeparated(v0z, v1z, v2z, hz));
+            // Most triangles are only near the box on one axis, skip the rest of the test if every one is clear of it.
+            if (separated.or(inRange.not()).allTrue())
+                continue;
+
+            var l0x = v1x.sub(v0x);
+            var l0y = v1y.sub(v0y);
+            var l0z = v1z.sub(v0z);
+            var l1x = v2x.sub(v1x);
+            var l1y = v2y.sub(v1y);
+            var l1z = v2z.sub(v1z);
+            var l2x = v0x.sub(v2x);
+            var l2y = v0y.sub(v2y);
+            var l2z = v0z.sub(v2z);
+
+            // Triangle normal.
+            var nx = l0y.mul(l1z).sub(l0z.mul(l1y));
+            var ny = l0z.mul(l1x).sub(l0x.mul(l1z));
+            var nz = l0x.mul(l1y).sub(l0y.mul(l1x));
+            separated = separated.or(isSeparated(
+                    dot(v0x, v0y, v0z, nx, ny, nz),
+                    dot(v1x, v1y, v1z, nx, ny, nz),
+                    dot(v2x, v2y, v2z, nx, ny, nz),
+                    radius(hx, hy, hz, nx, ny, nz)));
+
+            // X axis crossed with each edge, (0, -lz, ly).
+            separated = separated.or(isSeparatedCross(v0y, v1y, v2y, v0z, v1z, v2z, l0z, l0y, hy, hz))
+                    .or(isSeparatedCross(v0y, v1y, v2y, v0z, v1z, v2z, l1z, l1y, hy, hz))
+                    .or(isSeparatedCross(v0y, v1y, v2y, v0z, v1z, v2z, l2z, l2y, hy, hz));
+            // Y axis crossed with each edge, (lz, 0, -lx).
+            separated = separated.or(isSeparatedCross(v0z, v1z, v2z, v0x, v1x, v2x, l0x, l0z, hz, hx))
+                    .or(isSeparatedCross(v0z, v1z, v2z, v0x, v1x, v2x, l1x, l1z, hz, hx))
+                    .or(isSeparatedCross(v0z, v1z, v2z, v0x, v1x, v2x, l2x, l2z, hz, hx));
+            // Z axis crossed with each edge, (-ly, lx, 0).
+            separated = separated.or(isSeparatedCross(v0x, v1x, v2x, v0y, v1y, v2y, l0y, l0x, hx, hy))
+                    .or(isSeparatedCross(v0x, v1x, v2x, v0y, v1y, v2y, l1y, l1x, hx, hy))
+                    .or(isSeparatedCross(v0x, v1x, v2x, v0y, v1y, v2y, l2y, l2x, hx, hy));
+
+            if (separated.not().and(inRange).anyTrue())
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int getLanes() {
+        return SPECIES.length();
+    }
+
+    private static DoubleVector dot(DoubleVector x, DoubleVector y, DoubleVector z, DoubleVector nx, DoubleVector ny, DoubleVector nz) {
+        return x.mul(nx).add(y.mul(ny)).add(z.mul(nz));
+    }
+
+    private static DoubleVector radius(double hx, double hy, double hz, DoubleVector nx, DoubleVector ny, DoubleVector nz) {
+        return nx.abs().mul(hx).add(ny.abs().mul(hy)).add(nz.abs().mul(hz));
+    }
+
+    /**
+     * Tests the axis (a, b) = (-la, lb) in the plane of two coordinates, the cross product of the third axis with an
+     * edge.
+     */
+    private static VectorMask<Double> isSeparatedCross(DoubleVector a0, DoubleVector a1, DoubleVector a2,
+                                                       DoubleVector b0, DoubleVector b1, DoubleVector b2,
+                                                       DoubleVector la, DoubleVector lb, double ha, double hb) {
+        var na = la.neg();
+        return isSeparated(
+                a0.mul(na).add(b0.mul(lb)),
+                a1.mul(na).add(b1.mul(lb)),
+                a2.mul(na).add(b2.mul(lb)),
+                la.abs().mul(ha).add(lb.abs().mul(hb)));
+    }
+
+    private static VectorMask<Double> isSeparated(DoubleVector p0, DoubleVector p1, DoubleVector p2, double r) {
+        return isSeparated(p0, p1, p2, DoubleVector.broadcast(SPECIES, r));
+    }
+
+    /**
+     * Determines which projections of the triangles onto an axis lie entirely outside of the projected radius of the box.
+     */
+    private static VectorMask<Double> isSeparated(DoubleVector p0, DoubleVector p1, DoubleVector p2, DoubleVector r) {
+        return p0.max(p1).max(p2).neg().max(p0.min(p1).min(p2)).compare(VectorOperators.GT, r);
+    }
+}